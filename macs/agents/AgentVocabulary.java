@@ -57,6 +57,7 @@ public interface AgentVocabulary {
 	public static final int WO = 26;
 	public static final int CWS = 27;
 	public static final int RNEH = 28;
+	public static final int IG = 29;
 	
 
 	
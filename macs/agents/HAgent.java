@@ -31,7 +31,7 @@ import java.util.List;
 import macs.heuristics.PFSPSolver;
 import macs.heuristics.PatternHeuristic;
 import macs.heuristics.RCWS;
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.NodeList;
 import macs.ontologies.entities.Solution;
 import macs.ontologies.entities.SolutionData;
@@ -85,6 +85,7 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 	public float param1 = 0;
 	public float param2 = 0;
 	public Test aTest;
+	public SolverContext context = new SolverContext(); // this agent's working memory
 	
 	
 	
@@ -138,13 +139,16 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 		//vrp test object first first 5 parameters are historical from original uoc code and set by hand
 		if(behaviour == CWS){
 			//Instance name | Max Route Cost | Service Cost | Max Time | Distribution | param1 | param2 |Seed
-			aTest = new CVRPTest(SolutionWrapper.getInstance().getJobName(),100000,0,12,"g",new Float(param1),new Float(param2),distribution);
+			aTest = new CVRPTest(context.getJobName(),100000,0,12,"g",new Float(param1),new Float(param2),distribution);
 		}
-		else if(behaviour == RNEH){
+		else if(behaviour == RNEH || behaviour == IG){
 		
-			aTest = new PFSPTest(SolutionWrapper.getInstance().getJobName(),12,1000,"t",new Float(param1),new Float(param2),distribution);
+			aTest = new PFSPTest(context.getJobName(),12,1000,"t",new Float(param1),new Float(param2),distribution);
 			//# instance | maxTime(sec) | nIter | distribution | beta1 | beta2 | seed
 		}
+		// Own random streams for this agent, derived from the seed and its name
+		if(aTest != null)
+			aTest.setStreams(aTest.getStreams().split(getLocalName()));
 				   
 		 
 		
@@ -168,8 +172,8 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 		switch(state){
 		case 0 : 
 			
-			SolutionWrapper.getInstance().reset();					
-			addBehaviour(new SetupResponder(this,blockingReceive(),this,nlist));
+			context.reset();					
+			addBehaviour(new SetupResponder(this,blockingReceive(),this,nlist,context));
 		
 			count = 0;
 			
@@ -195,18 +199,18 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 				System.out.println("CurrentBest Value 1 " + currentbest.getValue());
 			}
 			//Take first solution and add it to the pool as a seed.
-			PatternHeuristic.setSolutionEdgesToPool(currentbest);
+			PatternHeuristic.setSolutionEdgesToPool(currentbest,context);
 			//Add current best to global currentbest value
-			SolutionWrapper.getInstance().setBestSoFar(currentbest.getSolution(), currentbest.getValue());
+			context.setBestSoFar(currentbest.getSolution(), currentbest.getValue());
 			
 					
 			if(getAID().getLocalName().equals("agent1")){
 				
-				addBehaviour(new FrequencyInitiator(this, createMessage(currentbest,ACLMessage.CFP,SolutionWrapper.getInstance().getProblem(),false),SolutionWrapper.getInstance().getAgents(),this,currentbest));				
+				addBehaviour(new FrequencyInitiator(this, createMessage(currentbest,ACLMessage.CFP,context.getProblem(),false),context.getAgents(),this,currentbest,context));				
 			}
 			else {
 				
-				addBehaviour(new FrequencyResponder(this,blockingReceive(),currentbest,this));			
+				addBehaviour(new FrequencyResponder(this,blockingReceive(),currentbest,this,context));			
 				
 			}
 		
@@ -218,9 +222,9 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 			
 			
 			
-			if(count < SolutionWrapper.getInstance().getConversations() ){		
+			if(count < context.getConversations() ){		
 				try {
-					if(count == 0||count==Math.round(SolutionWrapper.getInstance().getConversations()/2)||count==SolutionWrapper.getInstance().getConversations()-1){
+					if(count == 0||count==Math.round(context.getConversations()/2)||count==context.getConversations()-1){
 						currentbest = runMetaHeuristic(behaviour, optnumber,currentbest,tabusize, metaiterations, temp,false,aTest,count);
 					}
 					else{
@@ -237,14 +241,14 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 					}
 					System.out.println("CurrentBest Value before 2 " + currentbest.getValue());
 				}
-				SolutionWrapper.getInstance().setBestSoFar(currentbest.getSolution(), currentbest.getValue());
+				context.setBestSoFar(currentbest.getSolution(), currentbest.getValue());
 				if(initiator){
 					
-					addBehaviour(new FrequencyInitiator(this, createMessage(currentbest,ACLMessage.CFP,SolutionWrapper.getInstance().getProblem(),false),SolutionWrapper.getInstance().getAgents(),this,currentbest));				
+					addBehaviour(new FrequencyInitiator(this, createMessage(currentbest,ACLMessage.CFP,context.getProblem(),false),context.getAgents(),this,currentbest,context));				
 				}
 				else {
 					
-					addBehaviour(new FrequencyResponder(this,blockingReceive(),currentbest,this));			
+					addBehaviour(new FrequencyResponder(this,blockingReceive(),currentbest,this,context));			
 					
 				}
 				
@@ -257,7 +261,7 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 					// TODO Auto-generated catch block
 					e.printStackTrace();
 				}
-				SolutionWrapper.getInstance().setBestSoFar(
+				context.setBestSoFar(
 						currentbest.getSolution(), currentbest.getValue());
 				stopwatch.stop();
 			
@@ -265,15 +269,15 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 				Solution sol = new Solution();
 				
 				
-				sol.setSolution(SolutionWrapper.getInstance().getBestListSoFar());
-				sol.setValue(SolutionWrapper.getInstance().getBestValueSoFar());
+				sol.setSolution(context.getBestListSoFar());
+				sol.setValue(context.getBestValueSoFar());
 				
 				if(robust){
-					for(NodeList nl :SolutionWrapper.getInstance().getBestListSoFar()){
+					for(NodeList nl :context.getBestListSoFar()){
 						System.out.println("BEST LIST 2b "+ nl.getIntList());
 					}			
 					
-					System.out.println("BEST VALUE  2b  "+ SolutionWrapper.getInstance().getBestValueSoFar());
+					System.out.println("BEST VALUE  2b  "+ context.getBestValueSoFar());
 				}
 				
 			
@@ -283,7 +287,7 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 				agents = new ArrayList<String>();
 				agents.add("launcher");
 				
-				addBehaviour( new FinalInitiator(this, createMessage(sol,ACLMessage.REQUEST,SolutionWrapper.getInstance().getProblem(),true),agents,this));
+				addBehaviour( new FinalInitiator(this, createMessage(sol,ACLMessage.REQUEST,context.getProblem(),true),agents,this));
 				
 				
 				break;
@@ -326,21 +330,21 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 					sol.setSolution(currentbest.getSolution());
 					sol.setValue(currentbest.getValue());
 					if(robust){
-						for(NodeList nl :SolutionWrapper.getInstance().getBestListSoFar()){
+						for(NodeList nl :context.getBestListSoFar()){
 							System.out.println("BEST LIST "+ nl.getIntList());
 						}						
-						System.out.println("BEST VALUE "+ SolutionWrapper.getInstance().getBestValueSoFar());
+						System.out.println("BEST VALUE "+ context.getBestValueSoFar());
 					}
 					
 				
-					sol.setLocalOpt(SolutionWrapper.getInstance().getLocalOpt());
-					sol.setOptCount(SolutionWrapper.getInstance().getOptCount());
+					sol.setLocalOpt(context.getLocalOpt());
+					sol.setOptCount(context.getOptCount());
 					
 					sol.setTimes(time);
 					agents = new ArrayList<String>();
 					agents.add("launcher");
 					
-					addBehaviour( new FinalInitiator(this, createMessage(sol,ACLMessage.REQUEST,SolutionWrapper.getInstance().getProblem(),true),agents,this));
+					addBehaviour( new FinalInitiator(this, createMessage(sol,ACLMessage.REQUEST,context.getProblem(),true),agents,this));
 					
 				
 					break;
@@ -412,6 +416,9 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 		else if (command.equals("rneh")){
 			value = RNEH;
 		}
+		else if (command.equals("ig")){
+			value = IG;
+		}
 		else if (command.equals("pfsp")){
 			value = PFSP;
 		}
@@ -427,18 +434,22 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 	
 	private Solution runMetaHeuristic(int searchtype, int optnumber,Solution startsolution,int tabusize, 
 			int iterations, int tempfunction, boolean finalrun, Test aTest,int count) throws Exception{
-		Solution result = new Solution(SolutionWrapper.getInstance().getSolutionSize());
+		Solution result = new Solution(context.getSolutionSize());
 		
 		switch(searchtype){
 		
 		
 		case CWS:
-			result = RCWS.solve(startsolution,aTest,finalrun);
+			result = RCWS.solve(startsolution,aTest,finalrun,context);
 			break;
 			
 		
 		case RNEH:
-			result = PFSPSolver.solve(startsolution,aTest);
+			result = PFSPSolver.solve(startsolution,aTest,context);
+			break;
+			
+		case IG:
+			result = PFSPSolver.solveIG(startsolution,aTest,context);
 			break;
 	
 			
@@ -471,7 +482,7 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 			
 		}
 		else{
-			for (String agent : SolutionWrapper.getInstance().getAgents()) {
+			for (String agent : context.getAgents()) {
 				
 					if(!getLocalName().equals(agent)){
 						msg.addReceiver(new AID(agent, AID.ISLOCALNAME));
@@ -489,10 +500,10 @@ public class HAgent extends Agent implements AgentVocabulary,AgentState{
 		sol.setValue(currentbest.getValue());
 		
 		sol.setTime(currentbest.getTimes());
-		sol.setLocalOpt(SolutionWrapper.getInstance().getLocalOpt());
-		sol.setOptCount(SolutionWrapper.getInstance().getOptCount());
-		sol.setEdgeList(SolutionWrapper.getInstance().getEdgeList());
-		sol.setAgentName(SolutionWrapper.getInstance().getAgentName());
+		sol.setLocalOpt(context.getLocalOpt());
+		sol.setOptCount(context.getOptCount());
+		sol.setEdgeList(context.getEdgeList());
+		sol.setAgentName(context.getAgentName());
 	
 		
 		try {			
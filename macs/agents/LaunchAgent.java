@@ -27,7 +27,7 @@ import macs.heuristics.JobFiles;
 import macs.heuristics.PFSPSolver;
 import macs.heuristics.PatternHeuristic;
 import macs.heuristics.RCWS;
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.Edge;
 import macs.ontologies.entities.SolutionData;
 import macs.ontologies.entities.problems.SolutionElements;
@@ -52,7 +52,7 @@ public class LaunchAgent extends Agent implements AgentVocabulary, LaunchState{
 	 */
 	private static final long serialVersionUID = 1559695444603810526L;
 	public List<String> agents = null;	
-	//public SolutionWrapper sw = SolutionWrapper.getInstance();	
+	public SolverContext context = new SolverContext(); // this agent's working memory
 	Ontology ontology = MyOntology.getInstance();
 	public Codec codec = new XMLCodec();
 	List<JobFiles> names = null;
@@ -287,7 +287,7 @@ public class LaunchAgent extends Agent implements AgentVocabulary, LaunchState{
 		startsolution.setConversations(conversations);
 		
 		
-		SolutionWrapper.getInstance().setNodes(startsolution.getNodes());
+		context.setNodes(startsolution.getNodes());
 		
 		System.out.println("First Value " + startsolution.getValue());
 		System.out.println("Solutionsize " + startsolution.getNodes().size());
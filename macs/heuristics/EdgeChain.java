@@ -0,0 +1,174 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.heuristics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import macs.ontologies.entities.Edge;
+
+/**
+ * Builds the chain of PatternHeuristic.getLinkedEdgeList(). The list is swept again and again
+ * and an edge is linked when the sweep reaches it and it follows the last edge of the chain
+ * (its first node is the second node of the tail) or, if not, precedes the first one. The
+ * sweeps stop when one of them links nothing.
+ * 
+ * Instead of sweeping, the edges are indexed by first and by second node; from the position
+ * of the last linked edge the next edge to link is the nearest one, in sweep order, in the
+ * lists of the tail and of the head of the chain. Building the index is O(E) and each linked
+ * edge costs a binary search, the edges already linked are skipped once.
+ * @author simon martin
+ *
+ */
+public class EdgeChain {
+	
+	private static final int NONE = -1;
+	
+	private final Edge[] edges;
+	private final int[] edgeKey; // key of the edge at each position
+	private final boolean[] linked; // by key: repeated edges are linked once
+	private final Map<Integer, Positions> byFirst = new HashMap<Integer, Positions>();
+	private final Map<Integer, Positions> bySecond = new HashMap<Integer, Positions>();
+	
+	private EdgeChain(List<Edge> list){
+		edges = list.toArray(new Edge[list.size()]);
+		edgeKey = new int[edges.length];
+		EdgeFrequency keys = new EdgeFrequency();
+		for(int pos = 0; pos < edges.length; pos++){
+			keys.add(edges[pos]);
+			edgeKey[pos] = keys.indexOf(edges[pos]);
+			positions(byFirst, edges[pos].getFirst()).add(pos);
+			positions(bySecond, edges[pos].getSecond()).add(pos);
+		}
+		linked = new boolean[keys.size()];
+	}
+	
+	/**
+	 * @param list edges, in sweep order
+	 * @return the chain, same as the one built by sweeping the list
+	 */
+	public static LinkedList<Edge> link(List<Edge> list){
+		LinkedList<Edge> chain = new LinkedList<Edge>();
+		if(list.isEmpty())
+			return chain;
+		EdgeChain index = new EdgeChain(list);
+		int n = index.edges.length;
+		
+		//the first edge of the list starts the chain
+		chain.add(index.edges[0]);
+		index.linked[index.edgeKey[0]] = true;
+		int head = index.edges[0].getFirst();
+		int tail = index.edges[0].getSecond();
+		int cur = 1 % n;
+		
+		while(true){
+			int append = index.next(index.byFirst.get(tail), cur);
+			int prepend = index.next(index.bySecond.get(head), cur);
+			if(append == NONE && prepend == NONE)
+				break;
+			int pos;
+			boolean last; // the tail is tried before the head
+			if(prepend == NONE || (append != NONE && distance(append, cur, n) <= distance(prepend, cur, n))){
+				pos = append;
+				last = true;
+			}
+			else {
+				pos = prepend;
+				last = false;
+			}
+			Edge edge = index.edges[pos];
+			index.linked[index.edgeKey[pos]] = true;
+			if(last){
+				chain.addLast(edge);
+				tail = edge.getSecond();
+			}
+			else {
+				chain.addFirst(edge);
+				head = edge.getFirst();
+			}
+			cur = (pos + 1) % n;
+		}
+		return chain;
+	}
+	
+	private static int distance(int pos, int cur, int n){
+		return pos >= cur ? pos - cur : pos + n - cur;
+	}
+	
+	/** first position at or after cur, wrapping round, of an edge not linked yet */
+	private int next(Positions list, int cur){
+		if(list == null)
+			return NONE;
+		int i = list.alive(list.lowerBound(cur));
+		if(i == list.size)
+			i = list.alive(0);
+		return i == list.size ? NONE : list.pos[i];
+	}
+	
+	private Positions positions(Map<Integer, Positions> map, int node){
+		Positions list = map.get(node);
+		if(list == null){
+			list = new Positions();
+			map.put(node, list);
+		}
+		return list;
+	}
+	
+	/**
+	 * Increasing positions of the edges of one node. skip[] jumps over the edges
+	 * already linked (path compressed).
+	 */
+	private class Positions {
+		int[] pos = new int[2];
+		int[] skip;
+		int size = 0;
+		
+		void add(int p){
+			if(size == pos.length)
+				pos = Arrays.copyOf(pos, size * 2);
+			pos[size++] = p;
+		}
+		
+		int lowerBound(int p){
+			int i = Arrays.binarySearch(pos, 0, size, p);
+			return i >= 0 ? i : -i - 1;
+		}
+		
+		/** first index at or after i of an edge not linked, size if none */
+		int alive(int i){
+			if(skip == null){
+				skip = new int[size + 1];
+				for(int j = 0; j <= size; j++)
+					skip[j] = j;
+			}
+			int root = i;
+			while(root < size && (skip[root] != root || linked[edgeKey[pos[root]]])){
+				if(skip[root] == root)
+					skip[root] = root + 1;
+				root = skip[root];
+			}
+			while(i != root){
+				int nextIndex = skip[i];
+				skip[i] = root;
+				i = nextIndex;
+			}
+			return root;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.heuristics;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import macs.ontologies.EdgePool;
+import macs.ontologies.entities.Edge;
+
+/**
+ * Counts how many times each edge appears in the proposals of the agents. The edges are
+ * counted by their packed key (see EdgePool.pack) in an open addressing table, so adding
+ * an edge is O(1) and counting all the proposals of a conversation is linear in the number
+ * of edges. The distinct edges are kept in the order they are first seen, with the first
+ * Edge object seen for each of them.
+ * @author simon martin
+ *
+ */
+public class EdgeFrequency {
+	
+	private long[] keys = new long[16];
+	private int[] counts = new int[16];
+	private Edge[] edges = new Edge[16];
+	private int size = 0;
+	private int[] table = new int[32]; // entry+1, 0 if empty
+	
+	public EdgeFrequency(){}
+	
+	public EdgeFrequency(Collection<Edge> list){
+		addAll(list);
+	}
+	
+	public void add(Edge edge){
+		long key = EdgePool.pack(edge.getFirst(), edge.getSecond());
+		int mask = table.length - 1;
+		int slot = home(key, mask);
+		while(table[slot] != 0){
+			int entry = table[slot] - 1;
+			if(keys[entry] == key){
+				counts[entry]++;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if(size == keys.length){
+			grow();
+			add(edge);
+			return;
+		}
+		keys[size] = key;
+		counts[size] = 1;
+		edges[size] = edge;
+		table[slot] = ++size;
+	}
+	
+	public void addAll(Collection<Edge> list){
+		for(Edge edge : list)
+			add(edge);
+	}
+	
+	/**
+	 * @param edge
+	 * @return number of times the edge was added
+	 */
+	public int count(Edge edge){
+		int entry = indexOf(edge);
+		return entry < 0 ? 0 : counts[entry];
+	}
+	
+	/**
+	 * @param edge
+	 * @return index (order of first appearance) of the edge, -1 if it was never added
+	 */
+	public int indexOf(Edge edge){
+		long key = EdgePool.pack(edge.getFirst(), edge.getSecond());
+		int mask = table.length - 1;
+		for(int slot = home(key, mask); table[slot] != 0; slot = (slot + 1) & mask){
+			int entry = table[slot] - 1;
+			if(keys[entry] == key)
+				return entry;
+		}
+		return -1;
+	}
+	
+	/**
+	 * @return number of distinct edges
+	 */
+	public int size(){
+		return size;
+	}
+	
+	/**
+	 * @param i 0..size()-1, in order of first appearance
+	 * @return the first Edge object added for the i-th distinct edge
+	 */
+	public Edge getEdge(int i){
+		return edges[i];
+	}
+	
+	public int getCount(int i){
+		return counts[i];
+	}
+	
+	private static int home(long key, int mask){
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & mask;
+	}
+	
+	private void grow(){
+		int capacity = keys.length * 2;
+		keys = Arrays.copyOf(keys, capacity);
+		counts = Arrays.copyOf(counts, capacity);
+		edges = Arrays.copyOf(edges, capacity);
+		table = new int[capacity * 2];
+		int mask = table.length - 1;
+		for(int entry = 0; entry < size; entry++){
+			int slot = home(keys[entry], mask);
+			while(table[slot] != 0)
+				slot = (slot + 1) & mask;
+			table[slot] = entry + 1;
+		}
+	}
+}
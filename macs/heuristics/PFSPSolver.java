@@ -20,7 +20,7 @@ import java.io.FileNotFoundException;
 import java.util.List;
 import java.util.Random;
 
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.Solution;
 import macs.ontologies.entities.SolutionData;
 import macs.ontologies.entities.problems.SolutionElements;
@@ -28,6 +28,8 @@ import macs.uoc.api.Test;
 import macs.uoc.pfsp.api.InputManager;
 import macs.uoc.pfsp.api.PFSPInputs;
 import macs.uoc.pfsp.app.ILSESP;
+import macs.uoc.pfsp.app.IteratedGreedy;
+import macs.uoc.pfsp.app.ParallelILS;
 import macs.uoc.pfsp.app.PFSPTest;
 import macs.uoc.pfsp.baker.BakerInputsManager;
 import macs.uoc.pfsp.base.BaseInputsManager;
@@ -89,7 +91,7 @@ import macs.uoc.pfsp.base.BaseInputsManager;
     	return output;
 	}
 		
-	public static Solution solve(Solution solution, Test aTest) throws FileNotFoundException{
+	public static Solution solve(Solution solution, Test aTest, SolverContext context) throws FileNotFoundException{
 	
 		PFSPTest test = (PFSPTest) aTest;
 		
@@ -102,21 +104,50 @@ import macs.uoc.pfsp.base.BaseInputsManager;
      	
         // 2.1. GET THE INSTANCE INPUTS (JOBS DATA)
 		
-		PFSPInputs aInputs = SolutionWrapper.getInstance().getPFSPInputs();
+		PFSPInputs aInputs = context.getPFSPInputs();
 	
         //3. Set random number generator
-		Random rngJava = new Random(aTest.getSeed());
+		// Next stream of this agent (seeded, so a run can be replayed)
+		Random rngJava = aTest.getStreams().nextStream();
         aTest.setRandom(rngJava);       
 
         //4. Run the NEH algorithm using NEH Wrapper class      
         
-        //4.1 RUN THE ALGORITHM
-        Solution output = ILSESP.solve(solution, test,aInputs);
+        //4.1 RUN THE ALGORITHM (several ILS chains if -Dmacs.pfsp.chains > 1)
+        Solution output;
+        if(ParallelILS.CHAINS > 1)
+        	output = ParallelILS.solve(solution, test, aInputs, ParallelILS.CHAINS, context);
+        else
+        	output = ILSESP.solve(solution, test,aInputs,context);
       
 
     	return output;
 	}
 	
+	/**
+	 * Same as solve(Solution, Test, SolverContext) but runs the Iterated Greedy algorithm instead of the ILS
+	 * @param solution
+	 * @param aTest
+	 * @param context working memory of the agent
+	 * @return Solution
+	 * @throws FileNotFoundException
+	 */
+	public static Solution solveIG(Solution solution, Test aTest, SolverContext context) throws FileNotFoundException{
+		
+		PFSPTest test = (PFSPTest) aTest;
+		PFSPInputs aInputs = context.getPFSPInputs();
+		
+        //Set random number generator
+		// Next stream of this agent (seeded, so a run can be replayed)
+		Random rngJava = aTest.getStreams().nextStream();
+        aTest.setRandom(rngJava);       
+
+        //Run the IG algorithm
+        Solution output = IteratedGreedy.solve(solution, test,aInputs,context);
+      
+    	return output;
+	}
+	
 	
 	
 	
@@ -125,8 +156,8 @@ import macs.uoc.pfsp.base.BaseInputsManager;
 	
 	
 	
-	private static List<SolutionElements> getNodes(){
-		List<SolutionElements> nodes = SolutionWrapper.getInstance().getNodes();
+	private static List<SolutionElements> getNodes(SolverContext context){
+		List<SolutionElements> nodes = context.getNodes();
 	
 		return nodes;
 		
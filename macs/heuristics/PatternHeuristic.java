@@ -18,22 +18,22 @@ package macs.heuristics;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
 
 import macs.agents.AgentVocabulary;
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.Edge;
 import macs.ontologies.entities.NodeList;
 import macs.ontologies.entities.Solution;
 import macs.ontologies.entities.SolutionData;
 import macs.ontologies.entities.problems.JobData;
 import macs.ontologies.entities.problems.SolutionElements;
-import macs.parameters.Trough;
+import macs.util.NodeIndex;
 import macs.util.OptUtility;
 
 
@@ -41,7 +41,7 @@ import macs.util.OptUtility;
 
 	public class PatternHeuristic implements AgentVocabulary {
 		
-		public static Solution createNewSolution(List<Edge>linkedlist,List<Edge>unlinkedlist,Solution currentbest,boolean randomise){
+		public static Solution createNewSolution(List<Edge>linkedlist,List<Edge>unlinkedlist,Solution currentbest,boolean randomise,SolverContext context){
 			
 			Solution sol = new Solution();
 			NodeList nl = new NodeList();	
@@ -54,34 +54,34 @@ import macs.util.OptUtility;
 		
 			if(unlinkedlist==null&&currentbest==null){
 				
-				if(SolutionWrapper.getInstance().getProblem()==PFSP) {
+				if(context.getProblem()==PFSP) {
 					sol.setEdges(linkedlist);					
 				}
-				else if (SolutionWrapper.getInstance().getProblem()==VRP){
+				else if (context.getProblem()==VRP){
 					sol.setEdges(new ArrayList<Edge>(linkedlist));					
 				}
 				
 			}
 			else if(!unlinkedlist.isEmpty()||!linkedlist.isEmpty()){
-				if(SolutionWrapper.getInstance().getProblem()==PFSP){
+				if(context.getProblem()==PFSP){
 					linkedlist.addAll(unlinkedlist);	
 					sol.setEdges(linkedlist);
 								
 				}
-				else if (SolutionWrapper.getInstance().getProblem()==VRP){
+				else if (context.getProblem()==VRP){
 					sol.setEdges(new ArrayList<Edge>(linkedlist));
 				}
 				
 			}
 			else{
-				if (SolutionWrapper.getInstance().getProblem()==PFSP){
-					List<Edge> pool = new LinkedList<Edge>(SolutionWrapper.getInstance().getPool());
+				if (context.getProblem()==PFSP){
+					List<Edge> pool = context.getPool();
 					sol.setEdges(pool);
 					
 				}
-				else if (SolutionWrapper.getInstance().getProblem()==VRP){
+				else if (context.getProblem()==VRP){
 					
-					List<Edge> pool = new LinkedList<Edge>(SolutionWrapper.getInstance().getPool());
+					List<Edge> pool = context.getPool();
 					sol.setEdges(pool);
 					
 				}
@@ -96,8 +96,8 @@ import macs.util.OptUtility;
 			
 			
 			//*******************************************************************************************
-			if(SolutionWrapper.getInstance().getProblem()!=VRP){
-				if(sol.getSolution().size()>SolutionWrapper.getInstance().getSolutionSize()){
+			if(context.getProblem()!=VRP){
+				if(sol.getSolution().size()>context.getSolutionSize()){
 					
 					System.out.println("WRONG SIZE " + sol.getSolution().size());
 					System.out.println("WRONG SIZE LIST  " + sol.getSolution());
@@ -122,10 +122,19 @@ import macs.util.OptUtility;
 				
 		}//createNewSolution
 	
+	/**
+	 * @param list
+	 * @return the last element of the list that appears more than once, -1 if none
+	 */
 	public static int checkDuplicates(List<Integer> list){
 		int result = -1;
+		Map<Integer,Integer> counts = new HashMap<Integer,Integer>(list.size()*2);
 		for(Integer i : list){
-			if(Collections.frequency(list, i) > 1){
+			Integer count = counts.get(i);
+			counts.put(i, count == null ? 1 : count+1);
+		}
+		for(Integer i : list){
+			if(counts.get(i) > 1){
 				result = i;
 			}
 		}
@@ -133,78 +142,36 @@ import macs.util.OptUtility;
 		
 	}
 	
+	/**
+	 * Removes the repeated edges of the list, only the last copy of each edge is kept
+	 * @param edges
+	 * @return edges
+	 */
 	public static List<Edge> removeDuplicates(List<Edge> edges){
-		ListIterator<Edge> eit = edges.listIterator();
-	
-		while(eit.hasNext()){
-			Edge edge = eit.next();
-			if(Collections.frequency(edges, edge) > 1){
-				eit.remove();
+		EdgeFrequency frequency = new EdgeFrequency(edges);
+		EdgeFrequency seen = new EdgeFrequency();
+		List<Edge> unique = new ArrayList<Edge>(frequency.size());
+		for(Edge edge : edges){
+			seen.add(edge);
+			if(seen.count(edge) == frequency.count(edge)){
+				unique.add(edge);
 			}
 		}
+		edges.clear();
+		edges.addAll(unique);
 		return edges;
 	}
 	/**
 	 * The method takes a list of edges and tries to build a linked list of edges
-	 * where the last element of one edge pair is the first of another
-	 * Any edges not linked in this way are added to the back of the list
+	 * where the last element of one edge pair is the first of another.
+	 * The list is swept until no more edges can be linked, see EdgeChain
 	 * @param scoreList
 	 * @return
 	 */
 	
 	public static List<Edge> getLinkedEdgeList(List<Edge> scoreList){
-		Trough trough = new Trough(2,false);
-		boolean test = true;
-		int size = 0;
-		//This is the front part of the list we will build
-		//we will try to link the ranked heuristics from one if possible
-		LinkedList<Edge> linkedlist = new LinkedList<Edge>();
-		Set<Edge> set = new HashSet<Edge>();
-		//start by looking at the heuristics. Do any follow on from each other?
-		LinkedList<Edge> rankedheuristicscopy = new LinkedList<Edge>(scoreList);
-		Collections.copy(rankedheuristicscopy, new ArrayList<Edge>(scoreList));
-		//build linked list from heuristics if we can
-		//int count = 0;
-		while(!rankedheuristicscopy.isEmpty()&&test){
-			
-			
-			for(Edge hd : scoreList){
-				
-				if(linkedlist.isEmpty()&&set.add(hd)){
-					linkedlist.add(hd);
-					
-					rankedheuristicscopy.remove(hd);
-					
-				}
-				
-				if(hd.equalsFirst(linkedlist.getLast())&&set.add(hd)){
-					
-					linkedlist.addLast(hd);
-					
-					rankedheuristicscopy.remove(hd);
-					
-				} 
-				else if(hd.equalsSecond(linkedlist.getFirst())&&set.add(hd)){
-					linkedlist.addFirst(hd);
-					
-					rankedheuristicscopy.remove(hd);
-					
-				}
-				else{
-				
-					
-				}
-				
-				
-			}//end for
-			size = rankedheuristicscopy.size();
-			trough.addElement(size);
-			test = !trough.isTrough(size);
-			//count++;
-			
-		}//end while
 		
-		return linkedlist;
+		return EdgeChain.link(scoreList);
 	
 }// end createLinkedList
 
@@ -214,7 +181,7 @@ import macs.util.OptUtility;
 
 public static List<Edge> getUnLinkedEdges(List<Edge>linkedlist,List<Edge>rankedheuristics){
 	List<Edge> resultList = new LinkedList<Edge>();	
-	if(linkedlist.removeAll(rankedheuristics)){
+	if(linkedlist.removeAll(new HashSet<Edge>(rankedheuristics))){
 		resultList = linkedlist;
 	}
 	
@@ -223,29 +190,29 @@ public static List<Edge> getUnLinkedEdges(List<Edge>linkedlist,List<Edge>rankedh
 	
 	
 
-public static SolutionData createNewHeuristics(Solution currentbest){
-	List<Edge> edges = solutionToEdges(currentbest);	
+public static SolutionData createNewHeuristics(Solution currentbest,SolverContext context){
+	List<Edge> edges = solutionToEdges(currentbest,context);	
 	SolutionData output = new SolutionData();	
 	output.setHeuristics(edges);	
 	return output;
 }
-public static void setSolutionEdgesToPool(Solution currentbest){
+public static void setSolutionEdgesToPool(Solution currentbest,SolverContext context){
 	
-	List<Edge> output = solutionToEdges(currentbest);
-	SolutionWrapper.getInstance().setPool(output);
+	List<Edge> output = solutionToEdges(currentbest,context);
+	context.setPool(output);
 }
 
-public static List<Edge> solutionToEdges(Solution currentbest){
+public static List<Edge> solutionToEdges(Solution currentbest,SolverContext context){
 	List<Edge> output = new ArrayList<Edge>();
 		if(currentbest != null){
 		for(NodeList nl : currentbest.getSolution()){		
 			List<Integer> list = nl.getIntList();
-			output = listToEdgeList(list);
+			output = listToEdgeList(list,context);
 		}
 	}
 	return output;
 }
-public static List<Edge> listToEdgeList(List<Integer> currentbest){
+public static List<Edge> listToEdgeList(List<Integer> currentbest,SolverContext context){
 	
 	Set<Edge> output = new HashSet<Edge>();	
 
@@ -259,7 +226,7 @@ public static List<Edge> listToEdgeList(List<Integer> currentbest){
 			edge.setFirst(first);
 			edge.setSecond(second);
 			if(edge.getCosts()==-1.0)
-				edge = computeCost(edge);
+				edge = computeCost(edge,context);
 			output.add(edge);			
 		}	
 		//hamiltonian case
@@ -267,7 +234,7 @@ public static List<Edge> listToEdgeList(List<Integer> currentbest){
 		nedge.setFirst(currentbest.get(currentbest.size()-1));
 		nedge.setSecond(currentbest.get(0));
 		if(nedge.getCosts()==-1.0)
-			nedge = computeCost(nedge);
+			nedge = computeCost(nedge,context);
 		
 		output.add(nedge);
 		
@@ -282,7 +249,7 @@ public static List<Edge> nodesToEdgeList(List<SolutionElements> currentbest,int
 
 	if(!currentbest.isEmpty()){
 		
-		
+		NodeIndex nodes = new NodeIndex(currentbest); // built once for all the edges
 		for(int i = 0; i < currentbest.size()-1; i++){	
 			
 			Edge edge = new Edge();
@@ -290,14 +257,14 @@ public static List<Edge> nodesToEdgeList(List<SolutionElements> currentbest,int
 			int second = currentbest.get(i+1).getId();			
 			edge.setFirst(first);
 			edge.setSecond(second);		
-			edge.setCosts(OptUtility.computeSingleCost(edge, currentbest, problem));
+			edge.setCosts(OptUtility.computeSingleCost(edge, nodes, problem));
 			output.add(edge);
 		}	
 		//hamiltonian case
 		Edge nedge = new Edge();
 		nedge.setFirst(currentbest.get(currentbest.size()-1).getId());
 		nedge.setSecond(currentbest.get(0).getId());
-		nedge.setCosts(OptUtility.computeSingleCost(nedge, currentbest, problem));
+		nedge.setCosts(OptUtility.computeSingleCost(nedge, nodes, problem));
 		
 		output.add(nedge);
 		
@@ -315,8 +282,18 @@ public static List<Edge> nodesToEdgeList(List<SolutionElements> currentbest,int
  * @param hlist
  * @return
  */
-public  static SolutionData compareAndRank(List<Edge> hlist){
-	addGoodEdgesToPool(hlist);
+public  static SolutionData compareAndRank(List<Edge> hlist,SolverContext context){
+	return compareAndRank(new EdgeFrequency(hlist),context);
+}
+
+/**
+ * Same as compareAndRank(List, SolverContext) with the edges of all the agents already counted
+ * @param frequency
+ * @param context
+ * @return
+ */
+public  static SolutionData compareAndRank(EdgeFrequency frequency,SolverContext context){
+	addGoodEdgesToPool(frequency,context);
 		
 	List<Edge>  scoreList;
 	List<Edge>  unrankedList = new ArrayList<Edge>();
@@ -324,7 +301,7 @@ public  static SolutionData compareAndRank(List<Edge> hlist){
 	SolutionData sd = new SolutionData();
 	
 	
-	scoreList = new LinkedList<Edge>(SolutionWrapper.getInstance().getPool());
+	scoreList = context.getPool();
 	if(!scoreList.isEmpty()){
 		
 		rankedList = getLinkedEdgeList(scoreList);	
@@ -342,19 +319,20 @@ public  static SolutionData compareAndRank(List<Edge> hlist){
 /**
  * Method that scores Edges found by the agents and adds them too the pool
  * If the pool does not already contain them
- * @param hlist
+ * @param frequency
  */
 
-private static void addGoodEdgesToPool (List<Edge> hlist){	
-	for(Edge hd : hlist){
-		int score = Collections.frequency(hlist,hd);	
+private static void addGoodEdgesToPool (EdgeFrequency frequency,SolverContext context){	
+	for(int i = 0; i < frequency.size(); i++){
+		Edge hd = frequency.getEdge(i);
+		int score = frequency.getCount(i);	
 		
-		if(score >= SolutionWrapper.getInstance().getAgents().size()){	
+		if(score >= context.getAgents().size()){	
 			
 				hd.setScore(score);	
 				if(hd.getCosts()==-1)
-					hd = computeCost(hd);
-				SolutionWrapper.getInstance().addStraightToPool(hd);	
+					hd = computeCost(hd,context);
+				context.addStraightToPool(hd);	
 						
 			
 		}
@@ -380,9 +358,9 @@ public static List<Integer> edgesToList(Collection<Edge> hlist){
 	return ll;
 }
 
-	public static List<Edge> getNewLinkedEdgeList(List<Edge> linked){
-		SolutionWrapper.getInstance().addAllStrightToPool(linked);
-		List<Edge> scoreList = new LinkedList<Edge>(SolutionWrapper.getInstance().getPool());
+	public static List<Edge> getNewLinkedEdgeList(List<Edge> linked,SolverContext context){
+		context.addAllStrightToPool(linked);
+		List<Edge> scoreList = context.getPool();
 		List<Edge> result = null;
 		if(scoreList != null){
 			result = getLinkedEdgeList(scoreList);
@@ -392,9 +370,9 @@ public static List<Integer> edgesToList(Collection<Edge> hlist){
 		return result;
 		
 	}
-	public static List<Edge> getUnlinkedEdgeList(List<Edge> unlinked,List<Edge> linked){
+	public static List<Edge> getUnlinkedEdgeList(List<Edge> unlinked,List<Edge> linked,SolverContext context){
 		//try to make a linked list of the edges that we not previously linked
-		List<Edge> otherEdges = getNewLinkedEdgeList(unlinked);
+		List<Edge> otherEdges = getNewLinkedEdgeList(unlinked,context);
 		List<Edge> result = new LinkedList<Edge>();
 		if(otherEdges != null){
 			result = getUnLinkedEdges(linked,otherEdges);
@@ -433,22 +411,22 @@ public static List<Integer> edgesToList(Collection<Edge> hlist){
 	}
 	
 	
-	public static Edge computeCost(Edge edge){
+	public static Edge computeCost(Edge edge,SolverContext context){
 		double cost = 0;
 		
-			if(SolutionWrapper.getInstance().getProblem()==PFSP){
-				JobData first = (JobData)SolutionWrapper.getInstance().getNode(edge.getFirst());
-				JobData second = (JobData)SolutionWrapper.getInstance().getNode(edge.getSecond());
+			if(context.getProblem()==PFSP){
+				JobData first = (JobData)context.getNode(edge.getFirst());
+				JobData second = (JobData)context.getNode(edge.getSecond());
 				List<JobData> jList = new ArrayList<JobData>(2);
 				jList.add(first);
 				jList.add(second);
 				cost = OptUtility.calcTotalCosts(jList);
 				
-				//cost = SolutionWrapper.getInstance().getDistance(edge.getFirst(), edge.getSecond());
+				//cost = context.getDistance(edge.getFirst(), edge.getSecond());
 			}
-			else if(SolutionWrapper.getInstance().getProblem()==VRP){
-				SolutionElements first = SolutionWrapper.getInstance().getNode(edge.getFirst());
-				SolutionElements second = SolutionWrapper.getInstance().getNode(edge.getSecond());
+			else if(context.getProblem()==VRP){
+				SolutionElements first = context.getNode(edge.getFirst());
+				SolutionElements second = context.getNode(edge.getSecond());
 				cost = OptUtility.geDecEuclidanDistance(first, second);
 				
 			}
@@ -23,7 +23,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.Edge;
 import macs.ontologies.entities.Solution;
 import macs.ontologies.entities.SolutionData;
@@ -48,10 +48,11 @@ public class RCWS {
 	 * @param solution
 	 * @param aTest
 	 * @param finalrun
+	 * @param context working memory of the agent
 	 * @return solution
 	 * @throws FileNotFoundException 
 	 */
-	public static Solution solve(Solution solution, Test aTest,boolean finalrun) throws FileNotFoundException{
+	public static Solution solve(Solution solution, Test aTest,boolean finalrun,SolverContext context) throws FileNotFoundException{
 		/* 1. Get the edges found by the pattern matcher. They are contained in the solution object. */
 	
 		
@@ -62,7 +63,7 @@ public class RCWS {
 			//System.out.println("Edges "+e.getFirst()+","+e.getSecond()+"::"+e.getCosts());
 		
 		//1.2 get savings list from ememory
-		CVRPInputs inputs = SolutionWrapper.getInstance().getVRPInputs();		
+		CVRPInputs inputs = context.getVRPInputs();		
 		
 		
 		//remove good edges from current position in savings list and add them to head of list
@@ -72,9 +73,11 @@ public class RCWS {
 		
 		
 		/* 2. USE THE MULTI-START ALGORITHM TO SOLVE THE INSTANCE */
-	    Random rng = new Random();
+	    // Next stream of this agent (seeded, so a run can be replayed)
+	    Random rng = aTest.getStreams().nextStream();
+	    aTest.setRandom(rng);
 	    
-	    Solution output = MultiStart.solve(solution,aTest, inputs, rng);
+	    Solution output = MultiStart.solve(solution,aTest, inputs, rng, context);
 		
 		
 		
@@ -106,7 +109,8 @@ public static SolutionData solve(String inputNodesPath) throws FileNotFoundExcep
     LinkedList<VRPEdge> savings = Input.generateSavingsList(nodes);
     inputs.setList(savings);
     // 2.2. USE THE MULTI-START ALGORITHM TO SOLVE THE INSTANCE
-    Random rng = new Random();
+    Random rng = aTest.getStreams().nextStream();
+    aTest.setRandom(rng);
    
     SolutionData output = MultiStart.solve( aTest,  inputs,  rng);
      
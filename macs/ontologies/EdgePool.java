@@ -0,0 +1,378 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.ontologies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import macs.ontologies.entities.Edge;
+
+/**
+ * Size limited pool of the good edges found by the agents. An edge is packed in a long
+ * (first<<32 | second) and kept with its score and its cost in parallel arrays; an open
+ * addressing table finds an edge from its key and a min-heap orders the edges for eviction
+ * (lowest score first, then highest cost). Two edges are the same edge only if they join
+ * the same nodes, edges with equal costs are kept apart.
+ * 
+ * Lookups are O(1), adds and removes O(log n). The edges i = 0..size()-1 can be read with
+ * getFirst(i), getSecond(i), getScore(i) and getCost(i) without creating any object.
+ * The pool is not synchronized: SolverContext guards it.
+ * @author simon martin
+ *
+ */
+final public class EdgePool {
+	
+	private static final int NONE = -1;
+	
+	private int capacity;
+	private int size = 0;
+	
+	//edge columns, indexed by entry
+	private long[] keys;
+	private int[] scores;
+	private double[] costs;
+	private int[] heapPos; // position of the entry in the heap
+	
+	private int[] heap; // entries, worst edge at the top
+	private int[] table; // open addressing: entry+1, 0 if empty
+	private int mask;
+	
+	public EdgePool(int capacity){
+		allocate(Math.max(capacity, 0));
+	}
+	
+	private void allocate(int newCapacity){
+		capacity = newCapacity;
+		int n = Math.max(newCapacity, 1);
+		keys = new long[n];
+		scores = new int[n];
+		costs = new double[n];
+		heapPos = new int[n];
+		heap = new int[n];
+		int tableSize = Integer.highestOneBit(n * 2 - 1) << 1; // at most half full
+		table = new int[Math.max(tableSize, 2)];
+		mask = table.length - 1;
+		size = 0;
+	}
+	
+	public static long pack(int first, int second){
+		return ((long)first << 32) | (second & 0xFFFFFFFFL);
+	}
+	
+	public static int unpackFirst(long key){
+		return (int)(key >> 32);
+	}
+	
+	public static int unpackSecond(long key){
+		return (int)key;
+	}
+	
+	public int size(){
+		return size;
+	}
+	
+	public int getCapacity(){
+		return capacity;
+	}
+	
+	public boolean isFull(){
+		return size >= capacity;
+	}
+	
+	/**
+	 * Changes the maximum size. The edges kept are the best ones if the pool shrinks.
+	 * @param newCapacity
+	 */
+	public void setCapacity(int newCapacity){
+		newCapacity = Math.max(newCapacity, 0);
+		if(newCapacity == capacity)
+			return;
+		while(size > newCapacity)
+			removeEntry(heap[0]);
+		// the entries are kept in 0..size-1
+		int n = size;
+		long[] oldKeys = Arrays.copyOf(keys, n);
+		int[] oldScores = Arrays.copyOf(scores, n);
+		double[] oldCosts = Arrays.copyOf(costs, n);
+		allocate(newCapacity);
+		for(int i = 0; i < n; i++)
+			insert(oldKeys[i], oldScores[i], oldCosts[i]);
+	}
+	
+	public boolean contains(int first, int second){
+		return find(pack(first, second)) != NONE;
+	}
+	
+	public boolean contains(Edge edge){
+		return contains(edge.getFirst(), edge.getSecond());
+	}
+	
+	/**
+	 * Adds the edge if it is new and the pool is not full. If the edge is already in the
+	 * pool its score is raised to the score of edge.
+	 * @param edge
+	 * @return true if the edge was added
+	 */
+	public boolean add(Edge edge){
+		long key = pack(edge.getFirst(), edge.getSecond());
+		int entry = find(key);
+		if(entry != NONE){
+			raiseScore(entry, edge.getScore());
+			return false;
+		}
+		if(isFull())
+			return false;
+		insert(key, edge.getScore(), edge.getCosts());
+		return true;
+	}
+	
+	/**
+	 * Adds the edge if it is new. If the pool is full the worst edge is evicted to make room
+	 * (the new edge is always kept). If the edge is already in the pool its score is raised.
+	 * @param edge
+	 * @return true if the edge was added
+	 */
+	public boolean offer(Edge edge){
+		long key = pack(edge.getFirst(), edge.getSecond());
+		int entry = find(key);
+		if(entry != NONE){
+			raiseScore(entry, edge.getScore());
+			return false;
+		}
+		if(capacity == 0)
+			return false;
+		if(isFull())
+			removeEntry(heap[0]);
+		insert(key, edge.getScore(), edge.getCosts());
+		return true;
+	}
+	
+	/**
+	 * Replaces every edge that shares exactly one end (same first or same second node) with
+	 * edge. This scans the pool, O(n).
+	 * @param edge
+	 * @return true if some edge was replaced
+	 */
+	public boolean replace(Edge edge){
+		boolean replaced = false;
+		for(int i = size - 1; i >= 0; i--){
+			int first = unpackFirst(keys[i]);
+			int second = unpackSecond(keys[i]);
+			if((first == edge.getFirst()) != (second == edge.getSecond())){
+				removeEntry(i);
+				replaced = true;
+			}
+		}
+		if(replaced && !contains(edge))
+			offer(edge);
+		return replaced;
+	}
+	
+	public boolean remove(int first, int second){
+		int entry = find(pack(first, second));
+		if(entry == NONE)
+			return false;
+		removeEntry(entry);
+		return true;
+	}
+	
+	public boolean remove(Edge edge){
+		return remove(edge.getFirst(), edge.getSecond());
+	}
+	
+	public void clear(){
+		Arrays.fill(table, 0);
+		size = 0;
+	}
+	
+	public int getFirst(int i){
+		return unpackFirst(keys[i]);
+	}
+	
+	public int getSecond(int i){
+		return unpackSecond(keys[i]);
+	}
+	
+	public int getScore(int i){
+		return scores[i];
+	}
+	
+	public double getCost(int i){
+		return costs[i];
+	}
+	
+	/**
+	 * @return the edges of the pool as new Edge objects, by increasing cost
+	 */
+	public List<Edge> toList(){
+		Integer[] order = new Integer[size];
+		for(int i = 0; i < size; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>(){
+			public int compare(Integer a, Integer b){
+				int c = Double.compare(costs[a], costs[b]);
+				return c != 0 ? c : (keys[a] < keys[b] ? -1 : (keys[a] == keys[b] ? 0 : 1));
+			}
+		});
+		List<Edge> list = new ArrayList<Edge>(size);
+		for(Integer i : order){
+			Edge edge = new Edge(getFirst(i), getSecond(i));
+			edge.setCosts(costs[i]);
+			edge.setScore(scores[i]);
+			list.add(edge);
+		}
+		return list;
+	}
+	
+	/*******************************************************************************
+	 * hash table
+	 ******************************************************************************/
+	
+	private int home(long key){
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32)) & mask;
+	}
+	
+	private int find(long key){
+		for(int slot = home(key); table[slot] != 0; slot = (slot + 1) & mask){
+			int entry = table[slot] - 1;
+			if(keys[entry] == key)
+				return entry;
+		}
+		return NONE;
+	}
+	
+	private int slotOf(long key){
+		int slot = home(key);
+		while(keys[table[slot] - 1] != key)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+	
+	/** empties a slot and moves back the entries of the probe chain after it */
+	private void deleteSlot(int slot){
+		table[slot] = 0;
+		int next = slot;
+		while(true){
+			next = (next + 1) & mask;
+			if(table[next] == 0)
+				return;
+			int h = home(keys[table[next] - 1]);
+			boolean stays = slot <= next ? (slot < h && h <= next) : (slot < h || h <= next);
+			if(!stays){
+				table[slot] = table[next];
+				table[next] = 0;
+				slot = next;
+			}
+		}
+	}
+	
+	/*******************************************************************************
+	 * entries and heap
+	 ******************************************************************************/
+	
+	private void insert(long key, int score, double cost){
+		int entry = size++;
+		keys[entry] = key;
+		scores[entry] = score;
+		costs[entry] = cost;
+		int slot = home(key);
+		while(table[slot] != 0)
+			slot = (slot + 1) & mask;
+		table[slot] = entry + 1;
+		heap[entry] = entry;
+		heapPos[entry] = entry;
+		siftUp(entry);
+	}
+	
+	private void removeEntry(int entry){
+		// 1. out of the heap
+		int pos = heapPos[entry];
+		int lastPos = size - 1;
+		if(pos != lastPos){
+			int moved = heap[lastPos];
+			heap[pos] = moved;
+			heapPos[moved] = pos;
+			siftDown(pos, lastPos);
+			if(heapPos[moved] == pos)
+				siftUp(pos);
+		}
+		// 2. out of the table
+		deleteSlot(slotOf(keys[entry]));
+		// 3. the last entry takes its place in the columns
+		int last = size - 1;
+		if(entry != last){
+			table[slotOf(keys[last])] = entry + 1;
+			keys[entry] = keys[last];
+			scores[entry] = scores[last];
+			costs[entry] = costs[last];
+			heapPos[entry] = heapPos[last];
+			heap[heapPos[entry]] = entry;
+		}
+		size--;
+	}
+	
+	private void raiseScore(int entry, int score){
+		if(score > scores[entry]){
+			scores[entry] = score;
+			siftDown(heapPos[entry], size);
+		}
+	}
+	
+	/** true if entry a must leave the pool before entry b */
+	private boolean worse(int a, int b){
+		if(scores[a] != scores[b])
+			return scores[a] < scores[b];
+		if(costs[a] != costs[b])
+			return costs[a] > costs[b];
+		return keys[a] > keys[b];
+	}
+	
+	private void siftUp(int pos){
+		int entry = heap[pos];
+		while(pos > 0){
+			int parent = (pos - 1) >>> 1;
+			if(!worse(entry, heap[parent]))
+				break;
+			heap[pos] = heap[parent];
+			heapPos[heap[pos]] = pos;
+			pos = parent;
+		}
+		heap[pos] = entry;
+		heapPos[entry] = pos;
+	}
+	
+	private void siftDown(int pos, int n){
+		int entry = heap[pos];
+		while(true){
+			int child = 2 * pos + 1;
+			if(child >= n)
+				break;
+			if(child + 1 < n && worse(heap[child + 1], heap[child]))
+				child++;
+			if(!worse(heap[child], entry))
+				break;
+			heap[pos] = heap[child];
+			heapPos[heap[pos]] = pos;
+			pos = child;
+		}
+		heap[pos] = entry;
+		heapPos[entry] = pos;
+	}
+	
+}//end EdgePool
@@ -17,40 +17,50 @@
 package macs.ontologies;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 import macs.agents.AgentVocabulary;
-import macs.comparitors.EdgeCompare;
 import macs.ontologies.entities.Edge;
 import macs.ontologies.entities.NodeList;
 import macs.ontologies.entities.problems.NodeData;
 import macs.ontologies.entities.problems.SolutionElements;
 import macs.uoc.cvrp.CVRPInputs;
 import macs.uoc.pfsp.api.PFSPInputs;
+import macs.uoc.pfsp.api.PFSPJob;
+import macs.uoc.pfsp.app.PFSPInstance;
+import macs.uoc.pfsp.baker.BakerJob;
+import macs.util.NodeIndex;
 
 
 
 /**
+ * Working memory of one agent: the nodes, the edge pool, the best solution so far and the
+ * problem inputs. Every HAgent owns its own SolverContext and passes it to its protocol
+ * behaviours and solvers, so several agents can run in the same JVM.
+ * Read-only instance data can be shared between the agents through sharePFSPInputs().
  * @author simon martin
  *
  */
-final public class SolutionWrapper implements AgentVocabulary{
+final public class SolverContext implements AgentVocabulary{
+	
+	/** PFSP instances used by the contexts of this JVM, by content, see sharePFSPInputs() */
+	private static final Map<InstanceKey, SharedInstance> instances = new HashMap<InstanceKey, SharedInstance>();
 	
 	private List<SolutionElements> nodes;
+	private volatile NodeIndex nodeIndex; // nodes by id
 	private Set<Integer> list = new HashSet<Integer>(); //these are the column headings
 	private List<NodeList> bestListSoFar;
 	private double bestValueSoFar=0;
 	private double value =0.0;
-	//Set List pair to ensure a unique Edge pool	
-	private SortedSet<Edge> poolSet;
+	//size limited pool of unique edges, see EdgePool
+	private EdgePool pool;
 	
 	
 	private boolean initiator = false;
@@ -66,43 +76,124 @@ final public class SolutionWrapper implements AgentVocabulary{
 	private int depot = 0;
 	private CVRPInputs CVRPinputs;
 	private PFSPInputs PFSPinputs;
+	private InstanceKey sharedKey = null; // key of the shared instance in PFSPinputs
 	private List<Edge> edges = null;
 	private String agentName = null;
 	
 	
-    /** SingletonHolder is loaded on the first execution of Singleton.getInstance() 
-    * or the first access to SingletonHolder.INSTSortedSetANCE, not before.
-    */
-   final private static class  SolutionWrapperHolder {	  
-     private static final SolutionWrapper INSTANCE = new SolutionWrapper();
-   }
-   
-   final public static synchronized SolutionWrapper getInstance() {
-	   
-     return SolutionWrapperHolder.INSTANCE;
-   }
-   
-   private SolutionWrapper(){
+   public SolverContext(){
 	
 		//list = Collections.synchronizedSet(new HashSet<Integer>());
 		nodes = Collections.synchronizedList(new ArrayList<SolutionElements>());
-		poolSet =  Collections.synchronizedSortedSet(new TreeSet<Edge>(new EdgeCompare()));
+		pool = new EdgePool(0);
 		agents = Collections.synchronizedList(new ArrayList<String>());
 		bestListSoFar = Collections.synchronizedList(new ArrayList<NodeList>());
 		localopt = Collections.synchronizedList(new ArrayList<Double>());
 		edges = Collections.synchronizedList(new ArrayList<Edge>());
+		nodeIndex = new NodeIndex(nodes);
 		
 			
 		
    }
 
    /**
-    * reduces the risk of cloning. This class is a singleton
+    * Sets the PFSP inputs of this context to the instance built from inputs, or to the one
+    * another context of this JVM built from the same data: job class, ids, times and Baker
+    * variances, compared in full, so equal names or sizes are not enough. The instance is read
+    * only, so the agents can share it. It is released by reset() or when other inputs are set,
+    * and dropped when no context uses it.
+    * @param inputs
+    * @return PFSPInstance
+    */
+   public PFSPInstance sharePFSPInputs(PFSPInputs inputs){
+	   InstanceKey key = new InstanceKey(inputs);
+	   synchronized(instances){
+		   releasePFSPInputs();
+		   SharedInstance shared = instances.get(key);
+		   if(shared == null){
+			   shared = new SharedInstance(PFSPInstance.valueOf(inputs));
+			   instances.put(key, shared);
+		   }
+		   shared.users++;
+		   synchronized(this){
+			   this.PFSPinputs = shared.instance;
+			   this.sharedKey = key;
+		   }
+		   return shared.instance;
+	   }
+   }
+
+   /** Stops using the shared instance, if any, and drops it if no other context uses it */
+   private void releasePFSPInputs(){
+	   synchronized(instances){
+		   synchronized(this){
+			   if(sharedKey == null)
+				   return;
+			   SharedInstance shared = instances.get(sharedKey);
+			   if(shared != null && --shared.users == 0)
+				   instances.remove(sharedKey);
+			   sharedKey = null;
+		   }
+	   }
+   }
+
+   /** A PFSP instance and the number of contexts using it */
+   private static final class SharedInstance {
+	   final PFSPInstance instance;
+	   int users = 0;
+
+	   SharedInstance(PFSPInstance instance){
+		   this.instance = instance;
+	   }
+   }
+
+   /**
+    * Content of a PFSP instance: class of the jobs, size, lower bound and, for every job, id,
+    * total and processing times (and variances of Baker jobs). Hashed, then compared in full.
     */
-   public Object clone()throws CloneNotSupportedException
-	{
-	    throw new CloneNotSupportedException(); 
-	}    
+   private static final class InstanceKey {
+	   private final String jobClass;
+	   private final int[] content;
+	   private final int hash;
+
+	   InstanceKey(PFSPInputs inputs){
+		   int nJobs = inputs.getNumberOfJobs();
+		   int nMachines = inputs.getNumberOfMachines();
+		   PFSPJob[] jobs = inputs.getJobs();
+		   boolean baker = nJobs > 0 && jobs[0] instanceof BakerJob;
+		   jobClass = nJobs > 0 ? jobs[0].getClass().getName() : "";
+		   content = new int[3 + nJobs * (2 + (baker ? 2 : 1) * nMachines)];
+		   int k = 0;
+		   content[k++] = nJobs;
+		   content[k++] = nMachines;
+		   content[k++] = inputs.getLowerBound();
+		   for(int i = 0; i < nJobs; i++){
+			   PFSPJob job = jobs[i];
+			   content[k++] = job.getId();
+			   content[k++] = job.getTotalProcessingTime();
+			   for(int j = 0; j < nMachines; j++)
+				   content[k++] = job.getProcessingTime(j);
+			   if(baker)
+				   for(int j = 0; j < nMachines; j++)
+					   content[k++] = ((BakerJob) job).getVariance(j);
+		   }
+		   hash = 31 * jobClass.hashCode() + Arrays.hashCode(content);
+	   }
+
+	   @Override
+	   public int hashCode(){
+		   return hash;
+	   }
+
+	   @Override
+	   public boolean equals(Object o){
+		   if(!(o instanceof InstanceKey))
+			   return false;
+		   InstanceKey other = (InstanceKey) o;
+		   return hash == other.hash && jobClass.equals(other.jobClass)
+				   && Arrays.equals(content, other.content);
+	   }
+   }
 
 	
 
@@ -113,18 +204,18 @@ final public class SolutionWrapper implements AgentVocabulary{
 
 
 
-	public synchronized SolutionElements getNode(int name){
-		
-		
-		SolutionElements node = null;
-		
-		for(SolutionElements nd : nodes){
-			if(nd.getId() == name){
-				node = nd;
-				break;
-			}
-		}
-		return node;	
+	/**
+	 * Node with this id, looked up in the index built when the nodes were set. No lock is
+	 * taken: the index is replaced, never changed.
+	 * @param name id of the node
+	 * @return node or null
+	 */
+	public SolutionElements getNode(int name){
+		return nodeIndex.get(name);
+	}
+	
+	public NodeIndex getNodeIndex(){
+		return nodeIndex;
 	}
 
 	
@@ -154,8 +245,11 @@ final public class SolutionWrapper implements AgentVocabulary{
 	public synchronized String getAgentName(){
 		return agentName;
 	}
-	public synchronized Set<Edge> getPool(){
-		return poolSet;
+	/**
+	 * @return a copy of the edges of the pool, by increasing cost
+	 */
+	public synchronized List<Edge> getPool(){
+		return pool.toList();
 	}
 	
     public synchronized int getProblem(){
@@ -265,6 +359,7 @@ final public class SolutionWrapper implements AgentVocabulary{
 
 	public synchronized void setNodes(List<SolutionElements> nd){		
 		this.nodes = nd;
+		this.nodeIndex = new NodeIndex(nd);
 	}
 	public synchronized  void setAgentName(String agentName){
 		this.agentName = agentName;
@@ -279,8 +374,8 @@ final public class SolutionWrapper implements AgentVocabulary{
 	}
 	public synchronized void setPool(List<Edge> list){
 		for(Edge edge : list){
-			if(poolSet.size()<getPoolSize()){
-				poolSet.add(edge);
+			if(pool.size()<getPoolSize()){
+				pool.add(edge);
 				setEdgeList(edge);
 				//poolList.add(edge);
 			}
@@ -303,36 +398,22 @@ final public class SolutionWrapper implements AgentVocabulary{
 
 	/**
 	 *  @param newEdge
-	 *  we add a new element to the pool. The pool is a size limited LIFO queue with only unique elements
+	 *  we add a new element to the pool. The pool is a size limited queue with only unique elements
 	 *  if the pool does not have the element and the pool is not up to size limit then add
-	 *  if pool max size already reached, only add new element if unique and remove the first element
-	 *  and the distance is improving
+	 *  if pool max size already reached, only add new element if unique and evict the edge with the
+	 *  lowest score (the most costly one if the scores are equal)
 	 */
 	public synchronized void addStraightToPool(Edge newEdge){
 		
-		if(poolSet.size()<getPoolSize()){
-			poolSet.add(newEdge);
+		if(pool.size()<getPoolSize()){
+			pool.add(newEdge);
 			setEdgeList(newEdge);
 			
 		
 		}
-		else if(poolSet.size()==getPoolSize()){
-						
-			if(poolSet.add(newEdge)){
-				
-				setEdgeList(newEdge);
-		
-			
-			Edge remEdge;
-			remEdge = poolSet.first();
-			if(remEdge.equals(newEdge)){
-				remEdge = poolSet.last();
-			}
-			poolSet.remove(remEdge);
-		
-			
-			}
+		else if(pool.offer(newEdge)){
 				
+			setEdgeList(newEdge);
 			
 		}	
 	}
@@ -362,33 +443,21 @@ final public class SolutionWrapper implements AgentVocabulary{
 	 */
 	public synchronized void addReplaceToPool(Edge newEdge){
 		
-		if(poolSet.size()<getPoolSize()){
+		if(pool.size()<getPoolSize()){
 			
-			this.poolSet.add(newEdge);
+			this.pool.add(newEdge);
 			
 		}
-		else if(poolSet.size()==getPoolSize()){
-						
-			LinkedList<Edge> setCopy = new LinkedList<Edge>(poolSet);
-			ListIterator<Edge> it = setCopy.listIterator();
+		else {
 			
-			
-			while(it.hasNext()){
-				Edge poolEdge = it.next();
-				if(poolEdge.equalsElement(newEdge)){					
-					it.set(newEdge);
-				}
-			}
-			poolSet.clear();
-			poolSet.addAll(setCopy);
-					
+			pool.replace(newEdge);
 			
 		}
 		
 		setEdgeList(newEdge);
 	}
 	public synchronized void removeFromPool(Edge heuristic){		
-		this.poolSet.remove(heuristic);
+		this.pool.remove(heuristic);
 	}
 
 	
@@ -423,6 +492,7 @@ final public class SolutionWrapper implements AgentVocabulary{
 
 	public synchronized void setPoolSize(int poolsize){
 		this.poolSize = poolsize;
+		this.pool.setCapacity(poolsize);
 	}
    
 
@@ -437,6 +507,7 @@ final public class SolutionWrapper implements AgentVocabulary{
 
 	public synchronized void addToNodes(List<NodeData> newNodes){
 		this.nodes.addAll(newNodes);
+		this.nodeIndex = new NodeIndex(nodes);
 	}
 	
 	public synchronized int checkSize(int size){
@@ -472,8 +543,11 @@ final public class SolutionWrapper implements AgentVocabulary{
     	return this.CVRPinputs;
     }
     
-    public synchronized void setPFSPInputs (PFSPInputs PFSPinputs){
-		this.PFSPinputs = PFSPinputs;
+    public void setPFSPInputs (PFSPInputs PFSPinputs){
+    	releasePFSPInputs();
+    	synchronized(this){
+    		this.PFSPinputs = PFSPinputs;
+    	}
 	}
  
     public synchronized PFSPInputs getPFSPInputs() { 
@@ -481,9 +555,11 @@ final public class SolutionWrapper implements AgentVocabulary{
     }
  
     public void reset(){
+   	 releasePFSPInputs();
    	 this.nodes.clear();
+   	 this.nodeIndex = new NodeIndex(nodes);
    	 this.value= 0;
-   	 this.poolSet.clear();
+   	 this.pool.clear();
    	 this.initiator = false;
    	 this.agents.clear();
    	 this.problem = 0;
@@ -491,7 +567,8 @@ final public class SolutionWrapper implements AgentVocabulary{
    	 this.bestValueSoFar = 0;
    	 this.localopt.clear();
    	 this.optcount = 0;
-   	 this.poolSize = 0;   	
+   	 this.poolSize = 0;
+   	 this.pool.setCapacity(0);   	
    	 this.jobName = null;
    	 this.depot =0;
    	 this.CVRPinputs = null;
@@ -505,4 +582,4 @@ final public class SolutionWrapper implements AgentVocabulary{
 	
 
 	
-}//end SolutionWrapper
+}//end SolverContext
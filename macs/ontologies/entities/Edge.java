@@ -16,7 +16,7 @@
 package macs.ontologies.entities;
 
 import macs.agents.AgentVocabulary;
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.problems.SolutionElements;
 import macs.ontologies.vocabularies.EdgeVocabulary;
 import macs.ontologies.vocabularies.NodeListVocabulary;
@@ -141,9 +141,9 @@ public class Edge implements SolutionDataVocabulary, NodeListVocabulary, EdgeVoc
 		return result;
 	}
 	
-	public double calcCosts(){		
-		SolutionElements fNode = SolutionWrapper.getInstance().getNode(getFirst());
-		SolutionElements sNode = SolutionWrapper.getInstance().getNode(getSecond());
+	public double calcCosts(SolverContext context){		
+		SolutionElements fNode = context.getNode(getFirst());
+		SolutionElements sNode = context.getNode(getSecond());
 		setCosts(OptUtility.geDecEuclidanDistance(fNode, sNode));
 		return getCosts() ;	
 		
@@ -167,9 +167,12 @@ public class Edge implements SolutionDataVocabulary, NodeListVocabulary, EdgeVoc
 	
 	
 	
-    /*@Override public int hashCode() {
-        return (41 * (41 + getFirst()) + (41+getSecond()) + (41+getScore()) + getDistance());
-    }*/
+    /**
+     * Same fields as equals(): two edges joining the same nodes have the same hash
+     */
+    @Override public int hashCode() {
+        return 41 * (41 + getFirst()) + getSecond();
+    }
 
     
     
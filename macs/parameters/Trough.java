@@ -20,7 +20,7 @@ import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.Deque;
 
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 
 
 
@@ -36,12 +36,17 @@ public class Trough {
 	private boolean trough = false;
 	private int queuesize = 0;
 	private boolean robust = false;
+	private SolverContext context = null; // records the local optima if robust
 	
 	//constructors 
 	public Trough(Integer queuesize,boolean robust ){
+		this(queuesize,robust,null);
+	}
+	public Trough(Integer queuesize,boolean robust,SolverContext context ){
 		solutions = new ArrayDeque<Double>(queuesize);
 		this.queuesize = queuesize;
 		this.robust = robust;
+		this.context = context;
 	}
 
 	
@@ -93,9 +98,9 @@ public class Trough {
 	public boolean isTrough(double value){
 		if((solutions.size() == queuesize) && (Collections.frequency(solutions, value) == queuesize)){
 				trough = true;
-				if(robust){
-					SolutionWrapper.getInstance().setOptCount();
-					SolutionWrapper.getInstance().setLocalOpt(value);
+				if(robust && context != null){
+					context.setOptCount();
+					context.setLocalOpt(value);
 				}
 				
 		}
@@ -24,8 +24,9 @@ import java.util.Vector;
 
 import macs.agents.AgentState;
 import macs.agents.AgentVocabulary;
+import macs.heuristics.EdgeFrequency;
 import macs.heuristics.PatternHeuristic;
-import macs.ontologies.entities.Edge;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.Solution;
 import macs.ontologies.entities.SolutionData;
 import macs.ontologies.semantics.MyOntology;
@@ -50,7 +51,7 @@ public class FrequencyInitiator extends ContractNetInitiator implements
 	Ontology ontology = MyOntology.getInstance();
 	public Codec codec = new XMLCodec();
 	List<String> agents = null;
-	//SolutionWrapper sw = SolutionWrapper.getInstance();
+	private SolverContext context; // working memory of myAgent
 	int nResponders = 0; 
 	private AgentState as;
 	private boolean init = false;
@@ -58,7 +59,7 @@ public class FrequencyInitiator extends ContractNetInitiator implements
 	
 	
 	
-	public FrequencyInitiator(Agent a, ACLMessage msg, List<String> agents, AgentState as, Solution currentbest) {
+	public FrequencyInitiator(Agent a, ACLMessage msg, List<String> agents, AgentState as, Solution currentbest, SolverContext context) {
 		super(a, msg);
 		
 		myAgent.getContentManager().registerLanguage(codec);		
@@ -66,6 +67,7 @@ public class FrequencyInitiator extends ContractNetInitiator implements
 		this.as = as;
 		this.currentbest = currentbest;
 		this.agents = agents;
+		this.context = context;
 		
 		
 	}
@@ -78,7 +80,8 @@ public class FrequencyInitiator extends ContractNetInitiator implements
 			//System.out.println("Timeout expired: missing "+(nResponders - responses.size())+" responses");
 		}
 		
-		List<Edge> hlist = PatternHeuristic.solutionToEdges(currentbest);
+		//count the edges of all the agents in one pass
+		EdgeFrequency frequency = new EdgeFrequency(PatternHeuristic.solutionToEdges(currentbest,context));
 	
 		
 		List<Pair> agentValues = new ArrayList<Pair>();
@@ -94,7 +97,7 @@ public class FrequencyInitiator extends ContractNetInitiator implements
 				ce = myAgent.getContentManager().extractContent(msg);				
 				if(ce instanceof SolutionData){
 					SolutionData sd = (SolutionData)ce;					
-					hlist.addAll(sd.getHeuristics());
+					frequency.addAll(sd.getHeuristics());
 					
 					
 					Pair pair = new Pair();
@@ -113,7 +116,7 @@ public class FrequencyInitiator extends ContractNetInitiator implements
 		
 		
 		
-		SolutionData newsd  = PatternHeuristic.compareAndRank(hlist);
+		SolutionData newsd  = PatternHeuristic.compareAndRank(frequency,context);
 		
 		Pair min = getLowestValue(agentValues);
 	
@@ -158,7 +161,7 @@ public class FrequencyInitiator extends ContractNetInitiator implements
 		}
 	
 		
-		currentbest = PatternHeuristic.createNewSolution(newsd.getLinkedHeuristics(),newsd.getHeuristics(),currentbest,true);
+		currentbest = PatternHeuristic.createNewSolution(newsd.getLinkedHeuristics(),newsd.getHeuristics(),currentbest,true,context);
 		
 	}
 	
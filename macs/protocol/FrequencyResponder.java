@@ -22,7 +22,7 @@ import java.util.List;
 import macs.agents.AgentState;
 import macs.agents.AgentVocabulary;
 import macs.heuristics.PatternHeuristic;
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.Edge;
 import macs.ontologies.entities.Solution;
 import macs.ontologies.entities.SolutionData;
@@ -57,16 +57,18 @@ public class FrequencyResponder extends SSIteratedContractNetResponder
 	private AgentState as;
 	private Solution currentbest = null;
 	private boolean initiator = false;
+	private SolverContext context; // working memory of myAgent
 	
 	
 	
-	public FrequencyResponder(Agent a, ACLMessage mt, Solution currentbest,AgentState as) {
+	public FrequencyResponder(Agent a, ACLMessage mt, Solution currentbest,AgentState as,SolverContext context) {
 		
 		super(a, mt);
 		myAgent.getContentManager().registerLanguage(codec);		
 		myAgent.getContentManager().registerOntology(ontology);
 		this.as = as;
 		this.currentbest = currentbest;
+		this.context = context;
 			
 	}		
 	
@@ -88,7 +90,7 @@ public class FrequencyResponder extends SSIteratedContractNetResponder
 		if(ce instanceof SolutionData){				
 			
 			
-			SolutionData proposal = PatternHeuristic.createNewHeuristics(currentbest);
+			SolutionData proposal = PatternHeuristic.createNewHeuristics(currentbest,context);
 			
 				
 		
@@ -139,17 +141,17 @@ public class FrequencyResponder extends SSIteratedContractNetResponder
 			SolutionData sd = (SolutionData)ce;
 			initiator = sd.getInitiator();
 			if(sd.getNewNodes()!=null){
-				SolutionWrapper.getInstance().addToNodes(sd.getNewNodes());
+				context.addToNodes(sd.getNewNodes());
 			}
 		
 			inform = accept.createReply();
 			inform.setPerformative(ACLMessage.INFORM);
 			inform.setContent("");
 		
-			List<Edge> linked = PatternHeuristic.getNewLinkedEdgeList(sd.getLinkedHeuristics());
-			List<Edge> unlinked = PatternHeuristic.getUnlinkedEdgeList(sd.getHeuristics(),linked);
+			List<Edge> linked = PatternHeuristic.getNewLinkedEdgeList(sd.getLinkedHeuristics(),context);
+			List<Edge> unlinked = PatternHeuristic.getUnlinkedEdgeList(sd.getHeuristics(),linked,context);
 			
-			currentbest = PatternHeuristic.createNewSolution(linked,unlinked,currentbest,true);
+			currentbest = PatternHeuristic.createNewSolution(linked,unlinked,currentbest,true,context);
 		
 			
 			
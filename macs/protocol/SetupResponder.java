@@ -21,7 +21,6 @@ package macs.protocol;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 
 import jade.content.ContentElement;
 import jade.content.lang.Codec;
@@ -38,7 +37,7 @@ import jade.proto.SSIteratedAchieveREResponder;
 import macs.agents.AgentState;
 import macs.agents.AgentVocabulary;
 import macs.heuristics.PatternHeuristic;
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.Edge;
 import macs.ontologies.entities.Solution;
 import macs.ontologies.entities.SolutionData;
@@ -68,13 +67,17 @@ public class SetupResponder extends SSIteratedAchieveREResponder implements Agen
 	public Codec codec = new XMLCodec();
 	private Solution solution = new Solution();
 	private int state =0;
+	private SolverContext context; // working memory of myAgent
+	private double nlist; // neighbour list size of the savings list, see Input.getNeighbours()
 
-	public SetupResponder(Agent a, ACLMessage mt,AgentState as,double nlist) {
+	public SetupResponder(Agent a, ACLMessage mt,AgentState as,double nlist,SolverContext context) {
 		super(a, mt);
 		myAgent.getContentManager().registerLanguage(codec);		
 		myAgent.getContentManager().registerOntology(ontology);		
 		this.as = as;
-		SolutionWrapper.getInstance().reset();
+		this.context = context;
+		this.nlist = nlist;
+		context.reset();
 		
 		closeSessionOnNextReply();
 	}
@@ -91,11 +94,11 @@ public class SetupResponder extends SSIteratedAchieveREResponder implements Agen
 				SolutionData sd = (SolutionData)ce;
 				
 				
-				SolutionWrapper.getInstance().setAgentName(myAgent.getLocalName());
-				SolutionWrapper.getInstance().setJobName(sd.getJobName());
+				context.setAgentName(myAgent.getLocalName());
+				context.setJobName(sd.getJobName());
 				
 				if (sd.getProblem()== PFSP){
-					SolutionWrapper.getInstance().setProblem(PFSP);
+					context.setProblem(PFSP);
 					List<SolutionElements> nData = sd.getNodes();
 		
 					//populate input object with node
@@ -120,26 +123,26 @@ public class SetupResponder extends SSIteratedAchieveREResponder implements Agen
 					
 					
 					//put nodes in memory	
-					SolutionWrapper.getInstance().setList(list);
-					SolutionWrapper.getInstance().setPFSPInputs(inputs);						
-					SolutionWrapper.getInstance().setNodes(nData);
-					SolutionWrapper.getInstance().setSolutionSize(sd.getNodes().size());
-					SolutionWrapper.getInstance().setPoolSize((int)(sd.getNodes().size()*0.2));
+					context.setList(list);
+					context.sharePFSPInputs(inputs);						
+					context.setNodes(nData);
+					context.setSolutionSize(sd.getNodes().size());
+					context.setPoolSize((int)(sd.getNodes().size()*0.2));
 					//set number of jobs, values, number of agents, number of conversations -- used by PatternHeuristic
-					SolutionWrapper.getInstance().setSolutionSize(sd.getNodes().size());
-					SolutionWrapper.getInstance().setValue(sd.getValue());		
-					SolutionWrapper.getInstance().setAgents(sd.getAgents());
-					SolutionWrapper.getInstance().setConversations(sd.getConversations());
-					//SolutionWrapper.getInstance().setPool(sd.getHeuristics());
+					context.setSolutionSize(sd.getNodes().size());
+					context.setValue(sd.getValue());		
+					context.setAgents(sd.getAgents());
+					context.setConversations(sd.getConversations());
+					//context.setPool(sd.getHeuristics());
 					
 					//Build first solution from the seed sent by the launcher
-					Set<Edge> heuristics = SolutionWrapper.getInstance().getPool();					
-					List<Edge> linkedheuristics = PatternHeuristic.getLinkedEdgeList(new ArrayList<Edge>(heuristics));
-					solution = PatternHeuristic.createNewSolution(linkedheuristics, null, null, false);
+					List<Edge> heuristics = context.getPool();					
+					List<Edge> linkedheuristics = PatternHeuristic.getLinkedEdgeList(heuristics);
+					solution = PatternHeuristic.createNewSolution(linkedheuristics, null, null, false, context);
 					
 				}
 				else if (sd.getProblem()== VRP){
-					SolutionWrapper.getInstance().setProblem(VRP);
+					context.setProblem(VRP);
 					List<SolutionElements> nData = sd.getNodes();
 				
 					//populate input object with node
@@ -150,30 +153,32 @@ public class SetupResponder extends SSIteratedAchieveREResponder implements Agen
 						Node nd = new Node(nData.get(i).getId(),((NodeData)nData.get(i)).getX(),((NodeData)nData.get(i)).getY(),((NodeData)nData.get(i)).getDemand());
 	                    inputs.getNodes()[i] = nd;
 					}
-					//generate savings list and put it in memory	
+					//generate savings list (granular if nlist > 0) and put it in memory	
 					 Node[] depotEdges = Input.generateDepotEdges(inputs);
-					 LinkedList<VRPEdge> savings = Input.generateSavingsList(depotEdges);
+					 int neighbours = Input.getNeighbours(nlist, depotEdges.length);
+					 LinkedList<VRPEdge> savings = Input.generateSavingsList(depotEdges, neighbours);
+					 inputs.setNeighbours(neighbours);
 					 inputs.setList(savings);
-					 SolutionWrapper.getInstance().setVRPInputs(inputs);
+					 context.setVRPInputs(inputs);
 					
 					//put nodes in memory					
-					SolutionWrapper.getInstance().setNodes(nData);	
-					SolutionWrapper.getInstance().setDepot(sd.getDepot());					
-					SolutionWrapper.getInstance().setCapacity();				
-					SolutionWrapper.getInstance().setSolutionSize(sd.getNodes().size());
-					SolutionWrapper.getInstance().setPoolSize((int)(sd.getNodes().size()*0.2));									
+					context.setNodes(nData);	
+					context.setDepot(sd.getDepot());					
+					context.setCapacity();				
+					context.setSolutionSize(sd.getNodes().size());
+					context.setPoolSize((int)(sd.getNodes().size()*0.2));									
 		
-					SolutionWrapper.getInstance().setSolutionSize(sd.getNodes().size());
-					SolutionWrapper.getInstance().setValue(sd.getValue());		
-					SolutionWrapper.getInstance().setAgents(sd.getAgents());
-					SolutionWrapper.getInstance().setConversations(sd.getConversations());
+					context.setSolutionSize(sd.getNodes().size());
+					context.setValue(sd.getValue());		
+					context.setAgents(sd.getAgents());
+					context.setConversations(sd.getConversations());
 					
 					
 					
 					
-					Set<Edge> heuristics = SolutionWrapper.getInstance().getPool();
-					List<Edge> linkedheuristics = PatternHeuristic.getLinkedEdgeList(new LinkedList<Edge>(heuristics));
-					solution = PatternHeuristic.createNewSolution(linkedheuristics, null, null, false);
+					List<Edge> heuristics = context.getPool();
+					List<Edge> linkedheuristics = PatternHeuristic.getLinkedEdgeList(heuristics);
+					solution = PatternHeuristic.createNewSolution(linkedheuristics, null, null, false, context);
 					
 				}
 				
@@ -17,6 +17,8 @@ package macs.uoc.api;
 
 import java.util.Random;
 
+import macs.util.RandomStreams;
+
 public interface Test {    
 	
 	
@@ -25,6 +27,8 @@ public interface Test {
 	public float getMaxTime();
 	public String getDistribution();
 	public int getSeed();
+	public RandomStreams getStreams(); // independent streams, seeded with getSeed() by default
+	public void setStreams(RandomStreams streams);
 
 	
 	//PFSP Methods
@@ -15,6 +15,7 @@
  */
 package macs.uoc.cvrp;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -25,6 +26,7 @@ import java.util.List;
 
 
 import macs.ontologies.entities.Edge;
+import macs.util.Input;
 
 
 /**
@@ -37,6 +39,10 @@ public class CVRPInputs
     private Node[] nodes; // List of all nodes in the problem/sub-problem
     private float vCap = 0.0F; // Vehicle capacity (homogeneous fleet)
     private LinkedList<VRPEdge> savings = null; 
+    private VRPEdge[] savingsArray = null; // savings in selection order, see getSavingsArray()
+    private int[] savingsOrigins = null; // positions in nodes of the origins of savingsArray
+    private int[] savingsEnds = null; // positions in nodes of the ends of savingsArray
+    private int neighbours = 0; // k of a granular (k nearest neighbours) savings list, 0 if full
     private float[] vrpCenter; // (x-bar, y-bar) is a geometric VRP center
    
     public CVRPInputs(int n)
@@ -53,12 +59,70 @@ public class CVRPInputs
     public LinkedList<VRPEdge> getSavings(){return savings;}
     public float getVehCap(){return vCap;}
     public float[] getVrpCenter(){return vrpCenter;}
+    public int getNeighbours(){return neighbours;}
+    public boolean isGranular(){return neighbours > 0;}
+
+    /**
+     * The savings list in the order RandCWS selects from (reversed), built once per
+     * savings list. Call setList() again after changing the list in place.
+     */
+    public synchronized VRPEdge[] getSavingsArray()
+    {   if( savingsArray == null )
+        {   savingsArray = new VRPEdge[savings.size()];
+            int i = savingsArray.length;
+            for( VRPEdge e : savings )
+                savingsArray[--i] = e; // reverse order
+        }
+        return savingsArray;
+    }
+
+    /**
+     * Positions in getNodes() of the origin nodes of getSavingsArray(), so the
+     * CWS core (CWSRoutes) can work on int arrays indexed by node position
+     */
+    public synchronized int[] getSavingsOrigins()
+    {   if( savingsOrigins == null )
+            indexSavings();
+        return savingsOrigins;
+    }
+
+    /** Positions in getNodes() of the end nodes of getSavingsArray() */
+    public synchronized int[] getSavingsEnds()
+    {   if( savingsEnds == null )
+            indexSavings();
+        return savingsEnds;
+    }
+
+    private void indexSavings()
+    {   VRPEdge[] sorted = getSavingsArray();
+        IdentityHashMap<Node, Integer> position = new IdentityHashMap<Node, Integer>(nodes.length * 2);
+        for( int k = 0; k < nodes.length; k++ )
+            position.put(nodes[k], k);
+        int[] origins = new int[sorted.length];
+        int[] ends = new int[sorted.length];
+        for( int s = 0; s < sorted.length; s++ )
+        {   origins[s] = position.get(sorted[s].getOrigin());
+            ends[s] = position.get(sorted[s].getEnd());
+        }
+        savingsOrigins = origins;
+        savingsEnds = ends;
+    }
 
     /* SET METHODS */
     public void setVrpCenter(float[] center){vrpCenter = center;}
     public void setVehCap(float c){vCap = c;}
-    public void setList(LinkedList<VRPEdge> sList){savings = sList;}
-    public void setNodes(Node[] nodes){this.nodes = nodes;}
+    public void setNeighbours(int k){neighbours = k;}
+    public synchronized void setList(LinkedList<VRPEdge> sList)
+    {   savings = sList;
+        savingsArray = null;
+        savingsOrigins = null;
+        savingsEnds = null;
+    }
+    public synchronized void setNodes(Node[] nodes)
+    {   this.nodes = nodes;
+        savingsOrigins = null;
+        savingsEnds = null;
+    }
    
     
     
@@ -78,6 +142,7 @@ public class CVRPInputs
 		
 		if(!edges.isEmpty()){
 			for(Edge edge : edges){
+				boolean found = false;
 				
 				for(VRPEdge vrpEdge : vrpEdgesCopy){					
 					
@@ -86,17 +151,43 @@ public class CVRPInputs
 						
 						sav.remove(vrpEdge);						
 						sav.add(0,vrpEdge);
-						
+						found = true;
 						
 					}
 					
 				}
+				// a granular list lacks the edges outside the k nearest neighbours
+				if(!found && isGranular()){
+					VRPEdge vrpEdge = createEdge(edge);
+					if(vrpEdge != null)
+						sav.add(0,vrpEdge);
+				}
 			}
 		}
 		
 		return sav;
 		
     }
+
+    /**
+     * Creates the savings edge of a pool edge, with the lower node position as
+     * origin like Input.generateSavingsList(). Null for depot or unknown nodes.
+     */
+    private VRPEdge createEdge(Edge edge)
+    {   int i = -1;
+        int j = -1;
+        for( int k = 1; k < nodes.length; k++ ) // node 0 is the depot
+        {   if( nodes[k].getId() == edge.getFirst() || nodes[k].getId() == edge.getSecond() )
+            {   if( i < 0 )
+                    i = k;
+                else
+                    j = k;
+            }
+        }
+        if( j < 0 )
+            return null;
+        return Input.createSavingsEdge(nodes[i], nodes[j], nodes[0]);
+    }
 	
 	
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ package macs.uoc.cvrp;
 import java.util.Random;
 
 import macs.uoc.api.Test;
+import macs.util.RandomStreams;
 
 /**
  * @author Angel A. Juan - ajuanp(@)gmail.com
@@ -34,6 +35,8 @@ public class CVRPTest implements Test
     private float firstParam; // First parameter associated with the distribution
     private float secondParam; // Second parameter associated with the distribution
     private int seed; // Seed value for the Random Number Generator (RNG)
+    private Random rng; // RNG of the current search
+    private RandomStreams streams; // Streams for agents, runs and threads
  
     
     //Instance name | Max Route Cost | Service Cost | Nax Time | Distribution | param1 | param2 |Seed
@@ -80,13 +83,23 @@ public class CVRPTest implements Test
 
 	@Override
 	public Random getRandom() {
-		// TODO Auto-generated method stub
-		return null;
+		return rng;
 	}
 
 	@Override
 	public void setRandom(Random rng) {
-		// TODO Auto-generated method stub
-		
+		this.rng = rng;
+	}
+
+	@Override
+	public synchronized RandomStreams getStreams() {
+		if (streams == null)
+			streams = new RandomStreams(seed);
+		return streams;
+	}
+
+	@Override
+	public synchronized void setStreams(RandomStreams streams) {
+		this.streams = streams;
 	}
 }
\ No newline at end of file
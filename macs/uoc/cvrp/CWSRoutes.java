@@ -0,0 +1,275 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.cvrp;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import macs.uoc.api.Test;
+import macs.util.Input;
+
+/**
+ * Construction core of the CWS heuristic. The routes of the solution under
+ * construction are kept in arrays indexed by node position (depot = 0): each
+ * customer has two link slots, holding its neighbours and the savings edges to
+ * them (DEPOT and null for the depot), and each route is a union-find set
+ * whose root keeps the route endpoints, demand, costs and number of edges.
+ * Merging two routes is then O(1) amortized and no route has to be reversed
+ * or copied: the orientation (depot -> first ... last -> depot) follows from
+ * the endpoints. Route and VRPSolution objects are only built by toSolution().
+ * Nodes are not modified, so each thread can build its own solutions.
+ * @author Angel A. Juan - ajuanp(@)gmail.com
+ * @version 130112
+ */
+public class CWSRoutes
+{
+    private static final int DEPOT = 0; // position of the depot
+
+    private final Node[] nodes;
+    private final VRPEdge[] savings; // inputs.getSavingsArray()
+    private final int[] origins; // node position of the origin of savings[s]
+    private final int[] ends; // node position of the end of savings[s]
+    private final float vehCap;
+
+    private final int[] links; // links[2k], links[2k+1]: neighbours of node k
+    private final VRPEdge[] linkEdges; // and the edges to them
+    private final int[] parent; // union-find, a root is the route id
+    private final int[] rank;
+    // route data, valid at the roots
+    private final int[] first; // node visited first (after the depot)
+    private final int[] last; // node visited last (before the depot)
+    private final int[] nEdges; // edges in the route, depot edges included
+    private final int[] owner; // dummy route kept by the merges (list order)
+    private final double[] demand;
+    private final double[] costs;
+    private double solCosts;
+    private double solDemand;
+    private int nRoutes;
+
+    public CWSRoutes(CVRPInputs inputs)
+    {   nodes = inputs.getNodes();
+        savings = inputs.getSavingsArray();
+        origins = inputs.getSavingsOrigins();
+        ends = inputs.getSavingsEnds();
+        vehCap = inputs.getVehCap();
+        int n = nodes.length;
+        links = new int[2 * n];
+        linkEdges = new VRPEdge[2 * n];
+        parent = new int[n];
+        rank = new int[n];
+        first = new int[n];
+        last = new int[n];
+        nEdges = new int[n];
+        owner = new int[n];
+        demand = new double[n];
+        costs = new double[n];
+        reset();
+    }
+
+    /**
+     * Goes back to the dummy solution of the CWS heuristic:
+     *  dummySol = { (0,i,0) / i in nodes }
+     */
+    public void reset()
+    {   solCosts = 0.0;
+        solDemand = 0.0;
+        for( int i = 1; i < nodes.length; i++ ) // i = 0 is the depot
+        {   Node iNode = nodes[i];
+            links[2 * i] = DEPOT;
+            links[2 * i + 1] = DEPOT;
+            linkEdges[2 * i] = null;
+            linkEdges[2 * i + 1] = null;
+            parent[i] = i;
+            rank[i] = 0;
+            first[i] = i;
+            last[i] = i;
+            nEdges[i] = 2;
+            owner[i] = i;
+            demand[i] = 0.0 + iNode.getDemand();
+            costs[i] = 0.0 + iNode.getDiEdge().getCosts() + iNode.getIdEdge().getCosts();
+            solCosts = solCosts + costs[i];
+            solDemand = solDemand + demand[i];
+        }
+        nRoutes = nodes.length - 1;
+    }
+
+    public int getNumberOfRoutes(){return nRoutes;}
+    public double getCosts(){return solCosts;}
+
+    /**
+     * Merges the routes of the nodes of savings edge s, (i, j), into the route
+     * (0, ..., i, j, ..., 0) when the CWS merging conditions hold
+     * @param s position of the edge in inputs.getSavingsArray()
+     * @return true if the routes have been merged
+     */
+    public boolean merge(Test aTest, int s)
+    {   return merge(aTest, savings[s], origins[s], ends[s]);
+    }
+
+    /**
+     * As merge(aTest, s), for any edge (i, j) between customers
+     * @param i position of ijEdge.getOrigin() in inputs.getNodes()
+     * @param j position of ijEdge.getEnd() in inputs.getNodes()
+     */
+    public boolean merge(Test aTest, VRPEdge ijEdge, int i, int j)
+    {   int iR = find(i);
+        int jR = find(j);
+        // Condition 1: iR and jR are not the same route
+        if( iR == jR )
+            return false;
+        // Condition 2: both nodes are exterior nodes in their respective routes
+        if( isInterior(i) || isInterior(j) )
+            return false;
+        // Condition 3: demand after merging can be covered by a single vehicle
+        if( vehCap < demand[iR] + demand[jR] )
+            return false;
+        // Condition 4: total costs (distance) after merging are feasible
+        float maxRoute = aTest.getMaxRouteCosts();
+        float serviceCosts = aTest.getServiceCosts();
+        double newCost = costs[iR] + costs[jR] - ijEdge.getSavings();
+        if( newCost > maxRoute - serviceCosts * (nEdges[iR] + nEdges[jR] - 2) )
+            return false;
+
+        // The depot edges (0,i) and (j,0) are replaced by (i,j); iR is walked
+        // to end at i and jR to start at j
+        int newFirst = first[iR] == i ? last[iR] : first[iR];
+        int newLast = first[jR] == j ? last[jR] : first[jR];
+        int iSlot = links[2 * i] == DEPOT ? 2 * i : 2 * i + 1;
+        int jSlot = links[2 * j] == DEPOT ? 2 * j : 2 * j + 1;
+        links[iSlot] = j;
+        linkEdges[iSlot] = ijEdge;
+        links[jSlot] = i;
+        linkEdges[jSlot] = ijEdge;
+        double iCosts = costs[iR] - nodes[i].getDiEdge().getCosts();
+        double jCosts = costs[jR] - nodes[j].getDiEdge().getCosts();
+        double newDemand = demand[iR] + demand[jR];
+        int newEdges = nEdges[iR] + nEdges[jR] - 1;
+        int newOwner = owner[iR]; // iR is kept, jR is deleted
+
+        int root = union(iR, jR);
+        first[root] = newFirst;
+        last[root] = newLast;
+        costs[root] = iCosts + ijEdge.getCosts() + jCosts;
+        demand[root] = newDemand;
+        nEdges[root] = newEdges;
+        owner[root] = newOwner;
+        solCosts = solCosts - ijEdge.getSavings();
+        nRoutes--;
+        return true;
+    }
+
+    /**
+     * Builds the VRPSolution, with its routes in the order of the dummy
+     * solution they come from
+     */
+    public VRPSolution toSolution()
+    {   VRPSolution sol = new VRPSolution();
+        for( int k = 1; k < nodes.length; k++ )
+        {   int r = find(k);
+            if( owner[r] == k )
+                sol.getRoutes().add(toRoute(r));
+        }
+        sol.setCosts(solCosts);
+        sol.setDemand(solDemand);
+        return sol;
+    }
+
+    private Route toRoute(int r)
+    {   Route route = new Route();
+        int k = first[r];
+        route.getEdges().add(nodes[k].getDiEdge());
+        int from = DEPOT; // node visited before k
+        while( true )
+        {   int slot = links[2 * k] == from ? 2 * k + 1 : 2 * k;
+            if( links[slot] == DEPOT )
+                break;
+            VRPEdge e = linkEdges[slot];
+            if( e.getOrigin() != nodes[k] )
+                e = e.getInverseEdge();
+            route.getEdges().add(e);
+            from = k;
+            k = links[slot];
+        }
+        route.getEdges().add(nodes[k].getIdEdge());
+        route.setCosts(costs[r]);
+        route.setDemand(demand[r]);
+        return route;
+    }
+
+    /**
+     * The savings edges between the endpoints of the current routes whose
+     * merge is feasible now, i.e. the only part of the full savings list that
+     * a CWS construction could still use. It is empty once the construction
+     * is complete, and it is used to finish a construction made with a
+     * granular savings list.
+     * @return list sorted as Input.generateSavingsList()
+     */
+    public LinkedList<VRPEdge> getEndpointSavings(Test aTest)
+    {   List<Integer> roots = new ArrayList<Integer>();
+        for( int k = 1; k < nodes.length; k++ )
+            if( parent[k] == k )
+                roots.add(k);
+        float maxRoute = aTest.getMaxRouteCosts();
+        float serviceCosts = aTest.getServiceCosts();
+        List<VRPEdge> edges = new ArrayList<VRPEdge>();
+        for( int a = 0; a < roots.size(); a++ )
+        {   int aR = roots.get(a);
+            for( int b = a + 1; b < roots.size(); b++ )
+            {   int bR = roots.get(b);
+                if( vehCap < demand[aR] + demand[bR] )
+                    continue;
+                double maxCost = maxRoute - serviceCosts * (nEdges[aR] + nEdges[bR] - 2);
+                int[] aEnds = first[aR] == last[aR] ? new int[] {first[aR]} : new int[] {first[aR], last[aR]};
+                int[] bEnds = first[bR] == last[bR] ? new int[] {first[bR]} : new int[] {first[bR], last[bR]};
+                for( int i : aEnds )
+                {   for( int j : bEnds )
+                    {   VRPEdge ijEdge = i < j ? Input.createSavingsEdge(nodes[i], nodes[j], nodes[DEPOT])
+                                : Input.createSavingsEdge(nodes[j], nodes[i], nodes[DEPOT]);
+                        if( costs[aR] + costs[bR] - ijEdge.getSavings() <= maxCost )
+                            edges.add(ijEdge);
+                    }
+                }
+            }
+        }
+        return Input.sortSavings(edges.toArray(new VRPEdge[edges.size()]));
+    }
+
+    /** A node is interior if none of its neighbours is the depot */
+    private boolean isInterior(int k)
+    {   return links[2 * k] != DEPOT && links[2 * k + 1] != DEPOT;
+    }
+
+    private int find(int k)
+    {   while( parent[k] != k )
+        {   parent[k] = parent[parent[k]]; // path halving
+            k = parent[k];
+        }
+        return k;
+    }
+
+    private int union(int a, int b)
+    {   if( rank[a] < rank[b] )
+        {   int t = a;
+            a = b;
+            b = t;
+        }
+        parent[b] = a;
+        if( rank[a] == rank[b] )
+            rank[a]++;
+        return a;
+    }
+}
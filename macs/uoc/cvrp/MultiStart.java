@@ -24,8 +24,14 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.Edge;
 import macs.ontologies.entities.NodeList;
 import macs.ontologies.entities.Solution;
@@ -34,84 +40,137 @@ import macs.ontologies.entities.problems.NodeData;
 import macs.ontologies.entities.problems.SolutionElements;
 import macs.uoc.api.Test;
 import macs.util.OptUtility;
+import macs.util.RandomStreams;
 
 
 /**
  * Iteratively calls the RandCWS and saves the best solution.
+ * With the system property macs.cvrp.threads > 1 the calls are run by a pool
+ * of workers, each one with its own random stream (from aTest.getStreams(),
+ * keyed by rng), which share the RouteCache and the best solution found.
  * @author Angel A. Juan - ajuanp(@)gmail.com
  * @version 130112
  */
 public class MultiStart 
 {
-      
+    public static final String THREADS_PROPERTY = "macs.cvrp.threads";
+    public static final int THREADS = Math.max(1, Integer.getInteger(THREADS_PROPERTY, 1));
     
     public static SolutionData solve(Test aTest, CVRPInputs inputs, Random rng)
     {
         /* 1. Generates the CWS solution */
         long start = ElapsedTime.systemTime();
         VRPSolution cwsSol = RandCWS.solve(aTest, inputs, rng, true);
-        RouteCache cache = new RouteCache();
         double elapsed = ElapsedTime.calcElapsed(start, ElapsedTime.systemTime());
         cwsSol.setTime(elapsed);
        
-        VRPSolution bestSol = cwsSol;
-       
         /* 3. Iterates calls to RandCWS */
-        start = ElapsedTime.systemTime();
-        elapsed = 0.0;
-        while( elapsed < aTest.getMaxTime() )
-        	
-        {
-        	VRPSolution newSol = RandCWS.solve(aTest, inputs, rng, true);
-            newSol = cache.improveRoutesUsingHashTable(newSol);
-            if( newSol.getCosts() < bestSol.getCosts() ) 
-            {
-                bestSol = newSol;
-            
-            }
-            elapsed = ElapsedTime.calcElapsed(start, ElapsedTime.systemTime());
-        }
+        VRPSolution bestSol = iterate(aTest, inputs, rng, cwsSol, THREADS);
         
         SolutionData outputs = getOutputSolution(bestSol,inputs.getVehCap());
 
         /* 4. Returns the CWS sol. and the best-found sol. */
         return outputs;
     }
-    public static Solution solve(Solution solution, Test aTest, CVRPInputs inputs, Random rng)
+    public static Solution solve(Solution solution, Test aTest, CVRPInputs inputs, Random rng, SolverContext context)
     {
-    	VRPSolution bestSol = RandCWS.solve(aTest, inputs, rng, false);
-    	VRPSolution newSol = null;
-    	
-    	RouteCache cache = new RouteCache();
-   
-    	
         /* 1. Generates the CWS solution */
-        
-        
-    	long start = ElapsedTime.systemTime();    
-    
-    	double elapsed = 0.0;
+    	VRPSolution cwsSol = RandCWS.solve(aTest, inputs, rng, false);
+    	
     	//startCostToFile();
-    	while( elapsed < aTest.getMaxTime() )
-	    	{
-				newSol = RandCWS.solve(aTest, inputs, rng, true);
-	      
-				newSol = cache.improveRoutesUsingHashTable(newSol);
-		        if( newSol.getCosts() < bestSol.getCosts() )
-		        {                
-		            bestSol = newSol;
-		           
-		        }
-	        elapsed = ElapsedTime.calcElapsed(start, ElapsedTime.systemTime());
-	    
-            
-       }
-    	SolutionWrapper.getInstance().setLocalOpt(bestSol.getCosts());
+    	VRPSolution bestSol = iterate(aTest, inputs, rng, cwsSol, THREADS);
+    	context.setLocalOpt(bestSol.getCosts());
         Solution outputs = getResultSolution(bestSol,solution,false);
 
         /* 4. Returns the CWS sol. and the best-found sol. */
         return outputs;
     }
+
+    /**
+     * Calls RandCWS (improving the routes with a RouteCache) during
+     *  aTest.getMaxTime() seconds, in nThreads threads
+     * @return the best of bestSol and the solutions found
+     */
+    private static VRPSolution iterate(Test aTest, CVRPInputs inputs, Random rng,
+            VRPSolution bestSol, int nThreads)
+    {
+        long start = ElapsedTime.systemTime();
+        RouteCache cache = new RouteCache();
+        if( nThreads == 1 )
+            return new Worker(aTest, inputs, rng, start, cache,
+                    new AtomicReference<VRPSolution>(bestSol)).call();
+
+        AtomicReference<VRPSolution> best = new AtomicReference<VRPSolution>(bestSol);
+        RandomStreams streams = aTest.getStreams().split(rng.nextLong());
+        List<Worker> workers = new ArrayList<Worker>(nThreads);
+        for( int i = 0; i < nThreads; i++ )
+            workers.add(new Worker(aTest, inputs, streams.stream(i), start, cache, best));
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try
+        {   for( Future<VRPSolution> future : executor.invokeAll(workers) )
+                future.get();
+        }
+        // A failed or interrupted search must not pass for a complete one
+        catch (InterruptedException e)
+        {   Thread.currentThread().interrupt();
+            throw new IllegalStateException("Multi-start interrupted", e);
+        }
+        catch (ExecutionException e)
+        {   throw new IllegalStateException("Multi-start worker failed", e.getCause());
+        }
+        finally
+        {   executor.shutdownNow(); // stops the workers still running
+        }
+        return best.get();
+    }
+
+    /**
+     * Multi-start loop of one thread. Its random stream is its own, the
+     *  RouteCache and the best solution are shared.
+     */
+    private static class Worker implements Callable<VRPSolution>
+    {
+        private final Test aTest;
+        private final CVRPInputs inputs;
+        private final Random rng;
+        private final long start;
+        private final RouteCache cache;
+        private final AtomicReference<VRPSolution> best;
+
+        Worker(Test aTest, CVRPInputs inputs, Random rng, long start,
+                RouteCache cache, AtomicReference<VRPSolution> best)
+        {   this.aTest = aTest;
+            this.inputs = inputs;
+            this.rng = rng;
+            this.start = start;
+            this.cache = cache;
+            this.best = best;
+        }
+
+        public VRPSolution call()
+        {   double elapsed = 0.0;
+            while( elapsed < aTest.getMaxTime() )
+            {
+                VRPSolution newSol = RandCWS.solve(aTest, inputs, rng, true);
+                newSol = cache.improveRoutesUsingHashTable(newSol);
+                offer(newSol);
+                elapsed = ElapsedTime.calcElapsed(start, ElapsedTime.systemTime());
+                // stopped by shutdownNow() or the agent
+                if( Thread.currentThread().isInterrupted() )
+                    throw new IllegalStateException("Multi-start interrupted");
+            }
+            return best.get();
+        }
+
+        private void offer(VRPSolution newSol)
+        {   VRPSolution bestSol = best.get();
+            while( newSol.getCosts() < bestSol.getCosts() )
+            {   if( best.compareAndSet(bestSol, newSol) )
+                    return;
+                bestSol = best.get();
+            }
+        }
+    }
     
     private static Solution getResultSolution(VRPSolution vsol,Solution  solution,boolean finalrun){
     
@@ -28,12 +28,12 @@ public class Node extends NodeData
 	 */
 	private static final long serialVersionUID = 1L;
 	/* INSTANCE FIELDS & CONSTRUCTOR */
+    // Instance data only, shared by all the threads: the state of a CWS
+    //  construction (routes, interior nodes) is kept in CWSRoutes
     private int id; // node ID (depotID = 0)
     private float x; // node x coordinate
     private float y; // node y coordinate
     private float demand; // node demand
-    private Route inRoute = null; // route containing the node
-    private boolean isInterior = false; // interior node in a route
     private VRPEdge diEdge = null; // edge from depot to node
     private VRPEdge idEdge = null; // edge from node to depot
 
@@ -46,8 +46,6 @@ public class Node extends NodeData
     }
 
     /* SET METHODS */
-    public void setInRoute(Route r){inRoute = r;}
-    public void setIsInterior(boolean value){isInterior = value;}
     public void setDiEdge(VRPEdge e){diEdge = e;}
     public void setIdEdge(VRPEdge e){idEdge = e;}
 
@@ -57,8 +55,6 @@ public class Node extends NodeData
     public float getY(){return y;}
     
     public float getDemand(){return demand;}
-    public Route getInRoute(){return inRoute;}
-    public boolean getIsInterior(){return isInterior;}
     public VRPEdge getDiEdge(){return diEdge;}
     public VRPEdge getIdEdge(){return idEdge;}
 
@@ -15,8 +15,10 @@
  * If not, see <http://www.gnu.org/licenses/>.
  */
 package macs.uoc.cvrp;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 
 
 
@@ -56,13 +58,11 @@ public class Route
      */
   
     public void reverse()
-    {   
-        for( int i = 0; i < vRPEdges.size(); i++ )
-        {   VRPEdge e = vRPEdges.get(i);
-        	VRPEdge invE = e.getInverseEdge();
-            vRPEdges.remove(e);
-            vRPEdges.add(0, invE);
-        }
+    {   // in place and linear: invert every edge, then reverse their order
+        ListIterator<VRPEdge> it = vRPEdges.listIterator();
+        while( it.hasNext() )
+            it.set(it.next().getInverseEdge());
+        Collections.reverse(vRPEdges);
     }
 /////////////////////
 public void addEdge(VRPEdge anEdge)
@@ -15,6 +15,8 @@
  */
 package macs.uoc.cvrp;
 import java.util.*; 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 
@@ -26,6 +28,16 @@ import java.util.*;
  * This class uses a hash table to save the best known-so-far route for each set of
  * nodes. Therefore, given a route we can try to improve it by looking up at the
  * hash table, which could contain a better nodes-equivalent route.
+ * The key of a set of nodes is a 64-bit sum of a hash of each node id, so it can
+ * be computed without sorting (or updated when a node is added to a route), and
+ * each entry keeps the sorted ids of its nodes, so a collision is never taken
+ * for an equivalent route. The table is a ConcurrentHashMap: lookups take no
+ * lock and one cache can be shared by the threads of MultiStart. It holds at
+ * most capacity routes; when it is full, the entry with the least value (hits
+ * times nodes covered, i.e. how often and how much rebuilding work it saved) of
+ * a sample of SAMPLE entries is evicted. The newest capacity/4 routes are left
+ * out of the sample, so a route is not evicted before it has had a chance of
+ * being found again.
  * Timestamp (YYMMDD_HHMM): 110817
  * (c) Angel Juan - ajuanp(@)gmail.com
  **********************************************************************************/
@@ -35,18 +47,29 @@ public class RouteCache
      * INSTANCE FIELDS
      ******************************************************************************/
     // Declare and define some basic parameters of the hash table
-    private HashMap<Integer, Route> tableR;
+    public static final int DEFAULT_CAPACITY = 100000;
+    private static final int SAMPLE = 8; // entries compared per eviction
+    private ConcurrentHashMap<Long, CachedRoute> tableR;
     private int initialCapacity = 100000;
     private float loadFactor = 0.8F;
-    private int tableSize;
+    private final int capacity; // max number of routes
+    private final long protection; // newest routes that are never evicted
+    private final AtomicLong insertions = new AtomicLong(); // routes added so far
+    private Iterator<CachedRoute> sweep = null; // eviction sample, guarded by this
 	
     /*******************************************************************************
      * CLASS CONSTRUCTOR
      *****************************************************************************/
     public RouteCache()
+    {   this(DEFAULT_CAPACITY);
+    }
+
+    public RouteCache(int capacity)
     {   // Initialize the hash table
-	tableR = new HashMap<Integer, Route>(initialCapacity, loadFactor);
-	tableSize = 0;
+	this.capacity = Math.max(1, capacity);
+	this.protection = Math.max(1, this.capacity / 4);
+	tableR = new ConcurrentHashMap<Long, CachedRoute>(
+		Math.min(initialCapacity, this.capacity), loadFactor);
     }
 	
     /*******************************************************************************
@@ -65,11 +88,11 @@ public class RouteCache
         /***************************************************************************
          * 2. FOR EACH ROUTE IN THE GIVEN SOLUTION, TRY TO IMPROVE IT
          **************************************************************************/
-	Route iRoute = null;
-        for( int i = 0; i < sol.getRoutes().size(); i++ )
+	ListIterator<Route> routes = sol.getRoutes().listIterator();
+        while( routes.hasNext() )
     	{   
             // 2.1. Get a route iRoute in the solution
-            iRoute = sol.getRoutes().get(i);
+            Route iRoute = routes.next();
     		
             // 2.2. Try to improve iRoute by using the hash table
             //  If there isn't a better equivalent route in the current hash table
@@ -78,9 +101,7 @@ public class RouteCache
     		
             // 2.3. If betterRoute outperforms iRoute, update solution
             if( betterRoute.getCosts() < iRoute.getCosts() )
-            {   sol.getRoutes().remove(iRoute);
-                sol.getRoutes().add(i, betterRoute);
-            }
+                routes.set(betterRoute);
     		
             // 2.4. Add costs of the best-found route to the solution
             sol.addCosts(betterRoute.getCosts());
@@ -104,66 +125,153 @@ public class RouteCache
         //aRoute = improveNodesOrder(aRoute);
 
         // 2. OBTAIN, IF IT EXISTS, THE CACHED ROUTE COVERING THE SAME SET OF NODES
-	int nodesHash = getNodesHashFromRoute(aRoute);
-	Route cachedRoute = (Route) tableR.get(nodesHash);
-	
-	// 3. IF IT DOES NOT EXIST ALREADY, SAVE aRoute IN CACHE AND RETURN IT
-	if( cachedRoute == null )
-	{   tableR.put(nodesHash, aRoute);
-            return aRoute;
-	}
-	// 4. IF IT EXISTS ALREADY, UPDATE THE CACHE AND RETURN THE BEST ROUTE
-	else
-	{   // 4.1. If aRoute is better than cachedRoute, save aRoute and return it
-            if( aRoute.getCosts() < cachedRoute.getCosts() )
-            {   tableR.remove(nodesHash);
-		tableR.put(nodesHash, aRoute);
-		return aRoute;
+	Long nodesKey = getNodesKeyFromRoute(aRoute);
+	while( true ) // until no other thread changes the entry meanwhile
+	{   CachedRoute cachedRoute = tableR.get(nodesKey);
+
+            // 3. IF IT DOES NOT EXIST ALREADY, SAVE aRoute IN CACHE AND RETURN IT
+            if( cachedRoute == null )
+            {   if( tableR.putIfAbsent(nodesKey, new CachedRoute(aRoute, 0,
+        		insertions.incrementAndGet())) == null )
+        	{   evictIfFull();
+        	    return aRoute;
+        	}
             }
-            // 4.2. If cachedRoute is better than aRoute, return cachedRoute
+            // 3.1. Same key but other nodes (hash collision): aRoute is not cached
+            else if( cachedRoute.covers(aRoute) == false )
+        	return aRoute;
+            // 4. IF IT EXISTS ALREADY, UPDATE THE CACHE AND RETURN THE BEST ROUTE
             else
-                return cachedRoute;
+            {   cachedRoute.hit();
+        	// 4.1. If aRoute is better than cachedRoute, save aRoute and return it
+        	if( aRoute.getCosts() < cachedRoute.route.getCosts() )
+        	{   CachedRoute better = new CachedRoute(aRoute, cachedRoute.hits,
+        		    cachedRoute.born);
+        	    if( tableR.replace(nodesKey, cachedRoute, better) )
+        		return aRoute;
+        	}
+        	// 4.2. If cachedRoute is better than aRoute, return cachedRoute
+        	else
+        	    return cachedRoute.route;
+            }
+	}
+    }
+
+    /*******************************************************************************
+     * PRIVATE METHOD evictIfFull()
+     * While there are more than capacity routes, removes the entry of least value
+     * of the next SAMPLE entries (in table order, starting where the last eviction
+     * stopped). The sampled entries that stay lose half their hits, so the value
+     * of a route that is no longer found decays. The newest protection routes are
+     * skipped: they have 0 hits and would otherwise be the first ones to go.
+     ******************************************************************************/
+    private void evictIfFull()
+    {
+	if( tableR.size() <= capacity )
+	    return;
+	synchronized( this )
+	{   while( tableR.size() > capacity )
+	    {   CachedRoute victim = null;
+		long newest = insertions.get() - protection; // born after it: too new
+		int sampled = 0;
+		int scanned = 0;
+		int limit = tableR.size() + SAMPLE;
+		while( sampled < SAMPLE && scanned < limit )
+		{   if( sweep == null || sweep.hasNext() == false )
+			sweep = tableR.values().iterator();
+		    if( sweep.hasNext() == false )
+			return;
+		    CachedRoute candidate = sweep.next();
+		    scanned++;
+		    if( candidate.born > newest )
+			continue;
+		    sampled++;
+		    if( victim == null || candidate.value() < victim.value() )
+			victim = candidate;
+		    candidate.hits = candidate.hits / 2;
+		}
+		if( victim == null ) // only new routes (inserted by other threads)
+		    return;
+		tableR.remove(victim.key, victim);
+	    }
 	}
     }
 	
     /*******************************************************************************
-     * PRIVATE METHOD getNodesHashFromRoute()
-     * Given a route (e.g.: 0-1-2-23-15-0), this method creates a string containing
-     * its nodes sorted and separated by semicolons (e.g. "0:0:1:2:15:23"). Then,
-     * the method generates a hash code (integer) for this string and returns it.
-     * This integer (hash code) can be used as a key in a hash table.
+     * PUBLIC METHOD getNodesKeyFromRoute()
+     * Given a route (e.g.: 0-1-2-23-15-0), this method returns the sum of
+     * getNodeHash() of the ids of its nodes but the depot (1, 2, 23 and 15), so
+     * nodes-equivalent routes have the same key. As a sum, the key of a route can
+     * also be updated when a node is added (+) or removed (-).
      ******************************************************************************/
-    private int getNodesHashFromRoute(Route aRoute)
+    public static long getNodesKeyFromRoute(Route aRoute)
     {
-        // 1. CREATE A NEW nodesID ARRAY
-	//  (e.g.: route 0-1-2-23-15-0 has 5 edges and 6 nodes)
-	int length = aRoute.getEdges().size() + 1;
-        int[] nodesID = new int[length];
-		
-	// 2. STORE THE ID OF THE FIRST NODE (DEPOT) IN THE FIRST EDGE
-        nodesID[0] = 0;
-		
-	// 3. STORE THE IDs OF ALL REMAINING NODES IN aRoute
-	VRPEdge iEdge = null;
-        for( int i = 0; i < aRoute.getEdges().size() - 1; i++ )
-	{   iEdge = (VRPEdge)aRoute.getEdges().get(i);
-            nodesID[i + 1] = iEdge.getEnd().getId();
+	long key = 0;
+	int nNodes = aRoute.getEdges().size() - 1; // 0-1-2-23-15-0 has 5 edges
+	Iterator<VRPEdge> edges = aRoute.getEdges().iterator();
+	for( int i = 0; i < nNodes; i++ )
+	    key += getNodeHash(edges.next().getEnd().getId());
+	return key;
+    }
+
+    /*******************************************************************************
+     * PUBLIC METHOD getNodeHash()
+     * 64-bit hash of a node id (splitmix64 finalizer)
+     ******************************************************************************/
+    public static long getNodeHash(int id)
+    {
+	long z = id * 0x9E3779B97F4A7C15L;
+	z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+	z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+	return z ^ (z >>> 31);
+    }
+
+    /*******************************************************************************
+     * CLASS CachedRoute
+     * A cached route with the sorted ids of its nodes (but the depot)
+     ******************************************************************************/
+    private static class CachedRoute
+    {
+	final Route route;
+	final Long key;
+	final int[] nodesID; // sorted
+	final long born; // insertion number, see evictIfFull()
+	volatile int hits; // approximate under contention, only used to pick victims
+
+	CachedRoute(Route aRoute, int hits, long born)
+	{   route = aRoute;
+	    key = getNodesKeyFromRoute(aRoute);
+	    nodesID = new int[aRoute.getEdges().size() - 1];
+	    Iterator<VRPEdge> edges = aRoute.getEdges().iterator();
+	    for( int i = 0; i < nodesID.length; i++ )
+		nodesID[i] = edges.next().getEnd().getId();
+	    Arrays.sort(nodesID);
+	    this.hits = hits;
+	    this.born = born;
 	}
-		
-	// 4. CLOSE THE ARRAY BY ADDING THE DEPOT AS THE LAST NODE
-	nodesID[length - 1] = 0;
 
-	// 5. SORT NODES BY ID (e.g.: (0,0,1,2,15,23)
-	Arrays.sort(nodesID);
-	
-	// 6. CONSTRUCT A STRING BY ADDING EACH NODE IN nodesID SEPARATED BY ":"
-	//  (e.g.: "0:0:1:2:15:23")
-        StringBuilder nodes = new StringBuilder("0:0");
-        for( int i = 2; i < nodesID.length; i++ )
-            nodes.append(":").append(nodesID[i]);
-
-        // 7. RETURN A HASH CODE ASSOCIATED WITH THE RESULTING STRING
-        return nodes.toString().hashCode();
+	/** true if aRoute visits the same nodes, without building its ids array */
+	boolean covers(Route aRoute)
+	{   int nNodes = aRoute.getEdges().size() - 1;
+	    if( nNodes != nodesID.length )
+		return false;
+	    // the nodes of a route are distinct, so same size and all found is equal
+	    Iterator<VRPEdge> edges = aRoute.getEdges().iterator();
+	    for( int i = 0; i < nNodes; i++ )
+		if( Arrays.binarySearch(nodesID, edges.next().getEnd().getId()) < 0 )
+		    return false;
+	    return true;
+	}
+
+	void hit()
+	{   if( hits < Integer.MAX_VALUE / 2 )
+		hits++;
+	}
+
+	/** hits times the nodes covered, i.e. the rebuilding work saved */
+	long value()
+	{   return (long) hits * nodesID.length;
+	}
     }
 		
     /*******************************************************************************
@@ -227,7 +335,6 @@ public class RouteCache
     * PUBLIC METHOD getTableRSize()
     *******************************************************************************/
     public int getTableRSize()
-    {   tableSize = tableR.size();
-	return tableSize;
+    {   return tableR.size();
     }
 }
\ No newline at end of file
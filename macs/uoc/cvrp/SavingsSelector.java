@@ -0,0 +1,113 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.cvrp;
+
+import java.util.Arrays;
+
+/**
+ * The savings list of one CWS construction. The edges stay in an array, in the order
+ * they are selected from (CVRPInputs.getSavingsArray()), and a bitmap marks the edges not
+ * taken yet. A Fenwick tree over the bit counts of the 64-bit words finds the word that
+ * holds the edge at position index of the remaining list in O(log S), so no LinkedList
+ * has to be copied and walked. Most draws are near the head of the list and are served
+ * from the first non-empty word without using the tree, which is small (S/64 entries)
+ * and stays in cache when it is updated.
+ * @author Angel A. Juan - ajuanp(@)gmail.com
+ * @version 130112
+ */
+public class SavingsSelector
+{
+    private final VRPEdge[] savings;
+    private final long[] words; // bit b of word w set: savings[64w+b] not taken
+    private final int[] tree; // Fenwick tree of the bit counts of the words
+    private final int topBit; // highest power of 2 <= words.length
+    private int firstWord; // words before it are empty
+    private int size; // edges not taken yet
+
+    public SavingsSelector(VRPEdge[] sortedSavings)
+    {   savings = sortedSavings;
+        words = new long[(savings.length + 63) >>> 6];
+        tree = new int[words.length + 1];
+        topBit = words.length == 0 ? 0 : Integer.highestOneBit(words.length);
+        reset();
+    }
+
+    /** Puts all the edges back, O(S/64) */
+    public void reset()
+    {   Arrays.fill(words, -1L);
+        int tail = savings.length & 63;
+        if( tail != 0 )
+            words[words.length - 1] = (1L << tail) - 1;
+        // linear Fenwick build
+        Arrays.fill(tree, 0);
+        for( int i = 1; i < tree.length; i++ )
+        {   tree[i] += Long.bitCount(words[i - 1]);
+            int parent = i + (i & -i);
+            if( parent < tree.length )
+                tree[parent] += tree[i];
+        }
+        firstWord = 0;
+        size = savings.length;
+    }
+
+    public int size(){return size;}
+    public boolean isEmpty(){return size == 0;}
+
+    /**
+     * Takes the edge at position index of the remaining savings list
+     * @param index 0 <= index < size()
+     * @return the edge, which is removed from the list
+     */
+    public VRPEdge take(int index)
+    {   return savings[takePosition(index)];
+    }
+
+    /**
+     * As take(), but returns the position of the edge in the savings array
+     * @param index 0 <= index < size()
+     */
+    public int takePosition(int index)
+    {   while( words[firstWord] == 0 )
+            firstWord++;
+        int w;
+        if( index < Long.bitCount(words[firstWord]) )
+            w = firstWord; // near the head
+        else
+        {   // Fenwick descent to the word of the (index+1)-th remaining edge
+            int pos = 0;
+            int rem = index + 1;
+            for( int step = topBit; step > 0; step >>= 1 )
+            {   int next = pos + step;
+                if( next < tree.length && tree[next] < rem )
+                {   pos = next;
+                    rem -= tree[next];
+                }
+            }
+            w = pos;
+            index = rem - 1;
+        }
+        // index-th set bit of the word
+        long bits = words[w];
+        for( int k = 0; k < index; k++ )
+            bits &= bits - 1;
+        int bit = Long.numberOfTrailingZeros(bits);
+        words[w] &= ~(1L << bit);
+        for( int i = w + 1; i < tree.length; i += i & -i )
+            tree[i]--;
+        size--;
+        return (w << 6) + bit;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package macs.uoc.cvrp;
 import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Angel A. Juan - ajuanp(@)gmail.com
@@ -23,7 +24,7 @@ import java.util.LinkedList;
 public class VRPSolution
 {
     /* INSTANCE FIELDS & CONSTRUCTOR */
-    private static long nInstances = 0; // number of instances
+    private static final AtomicLong nInstances = new AtomicLong(); // number of instances
     private long id; // solution ID
     private double costs = 0.0; // solution costs
     private double demand = 0.0F; // total demand
@@ -31,8 +32,7 @@ public class VRPSolution
     private double time = 0.0; // elapsed computational time (in seconds)
 
     public VRPSolution()
-    {   nInstances++;
-        id = nInstances;
+    {   id = nInstances.incrementAndGet(); // solutions are built by several threads
         routes = new LinkedList<Route>();
     }
    
@@ -19,4 +19,5 @@ public interface PFSPInputs  {
 	 public int getNumberOfJobs();
 	 public int getNumberOfMachines();
 	 public PFSPJob[] getJobs(); 
+	 public int getLowerBound(); // makespan lower bound, 0 if unknown
 }
@@ -0,0 +1,153 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.app;
+
+import macs.uoc.pfsp.api.PFSPJob;
+import macs.uoc.pfsp.baker.BakerJob;
+
+/***********************************************************************************
+ * Project SimScheduling - ClarkEvaluator.java
+ *
+ * Analytic approximation of the expected makespan of a stochastic FSP instance.
+ *  Every completion time is taken as a normal variable: the mean and variance
+ *  of the processing time are added, and the max() of the recurrence
+ *      C[i][j] = max(C[i-1][j], C[i][j-1]) + p[i][j]
+ *  is replaced by the normal with the first two moments of the max of two
+ *  independent normals (Clark, 1961). The cost is the same as the deterministic
+ *  calcTotalCosts(): one row of means and one of variances.
+ *
+ * The correlation between the two completion times is ignored, so the value
+ *  is a surrogate to rank solutions; the Monte Carlo simulation
+ *  (MonteCarloEvaluator) confirms the estimates.
+ **********************************************************************************/
+
+public class ClarkEvaluator
+{
+	/*******************************************************************************
+	 * INSTANCE FIELDS
+	 ******************************************************************************/
+
+	private final int nMachines;
+	private final double[] means; // mean times, job * nMachines + machine
+	private final double[] variances; // variances of the times
+	private final double[] cMean; // current row of mean completion times
+	private final double[] cVar; // current row of completion time variances
+	private double variance; // variance of the last makespan computed
+
+	/*******************************************************************************
+	 * CLASS CONSTRUCTOR
+	 ******************************************************************************/
+
+	public ClarkEvaluator(PFSPInstance instance)
+	{
+		int nJobs = instance.getNumberOfJobs();
+		nMachines = instance.getNumberOfMachines();
+		means = new double[nJobs * nMachines];
+		variances = new double[nJobs * nMachines];
+		for( int i = 0; i < nJobs; i++ )
+		{
+			PFSPJob job = instance.getJob(i);
+			for( int j = 0; j < nMachines; j++ )
+			{
+				means[i * nMachines + j] = instance.getProcessingTime(i, j);
+				if( job instanceof BakerJob )
+					variances[i * nMachines + j] = ((BakerJob) job).getVariance(j);
+			}
+		}
+		cMean = new double[nMachines];
+		cVar = new double[nMachines];
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD calcExpCosts()
+	 * Approximate expected makespan of the first nUsedJobs jobs (indexes) of jobs
+	 ******************************************************************************/
+
+	public double calcExpCosts(int[] jobs, int nUsedJobs)
+	{
+		for( int j = 0; j < nMachines; j++ )
+		{
+			cMean[j] = 0.0;
+			cVar[j] = 0.0;
+		}
+		for( int row = 0; row < nUsedJobs; row++ )
+		{
+			int base = jobs[row] * nMachines;
+			cMean[0] += means[base];
+			cVar[0] += variances[base];
+			for( int j = 1; j < nMachines; j++ )
+			{
+				maxOf(cMean[j], cVar[j], cMean[j - 1], cVar[j - 1], j);
+				cMean[j] += means[base + j];
+				cVar[j] += variances[base + j];
+			}
+		}
+		variance = cVar[nMachines - 1];
+		return cMean[nMachines - 1];
+	}
+
+	public double calcExpCosts(PFSPSolution aSol)
+	{
+		return calcExpCosts(aSol.getJobs(), aSol.getNJobs());
+	}
+
+	/**
+	 * Returns the variance of the makespan of the last calcExpCosts()
+	 */
+	public double getVariance()
+	{
+		return variance;
+	}
+
+	/*******************************************************************************
+	 * PRIVATE METHOD maxOf()
+	 * Clark's moments of max(X, Y), X ~ N(m1, v1), Y ~ N(m2, v2) independent,
+	 *  written in cMean[j], cVar[j]
+	 ******************************************************************************/
+
+	private void maxOf(double m1, double v1, double m2, double v2, int j)
+	{
+		double a2 = v1 + v2;
+		if( a2 <= 0.0 )
+		{
+			cMean[j] = Math.max(m1, m2);
+			cVar[j] = 0.0;
+			return;
+		}
+		double a = Math.sqrt(a2);
+		double alpha = (m1 - m2) / a;
+		double cdf = normalCdf(alpha);
+		double pdf = Math.exp(-0.5 * alpha * alpha) * 0.3989422804014327;
+		double mean = m1 * cdf + m2 * (1 - cdf) + a * pdf;
+		double second = (m1 * m1 + v1) * cdf + (m2 * m2 + v2) * (1 - cdf)
+				+ (m1 + m2) * a * pdf;
+		cMean[j] = mean;
+		cVar[j] = Math.max(second - mean * mean, 0.0);
+	}
+
+	/**
+	 * Standard normal CDF (Abramowitz and Stegun 26.2.17, error < 7.5e-8)
+	 */
+	static double normalCdf(double x)
+	{
+		double z = Math.abs(x);
+		double t = 1.0 / (1.0 + 0.2316419 * z);
+		double poly = t * (0.319381530 + t * (-0.356563782 + t * (1.781477937
+				+ t * (-1.821255978 + t * 1.330274429))));
+		double tail = Math.exp(-0.5 * z * z) * 0.3989422804014327 * poly;
+		return x >= 0 ? 1.0 - tail : tail;
+	}
+}
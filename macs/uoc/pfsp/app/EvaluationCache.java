@@ -0,0 +1,189 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.app;
+
+import macs.util.OptUtility;
+
+/***********************************************************************************
+ * Project SimScheduling - EvaluationCache.java
+ *
+ * Bounded cache of the local optima found by the ILS, keyed by the Zobrist hash
+ *  of the permutation (PFSPSolution.getHash()). When the perturbation leads back
+ *  to a permutation that is already a known local optimum, the globalImprovement()
+ *  descent is skipped.
+ *
+ * The table is open addressing with at most MAX_PROBES slots per hash; when they
+ *  are all taken the entry at the home slot is replaced, so the size never grows
+ *  beyond the capacity. The makespan is stored with the hash and must match too.
+ *
+ * The capacity (entries) is given by the system property macs.pfsp.evalCache;
+ *  0 (default) disables the cache.
+ **********************************************************************************/
+
+final class EvaluationCache
+{
+	/*******************************************************************************
+	 * CONSTANT FIELDS
+	 ******************************************************************************/
+
+	static final String CAPACITY_PROPERTY = "macs.pfsp.evalCache";
+	static final int CAPACITY = Integer.getInteger(CAPACITY_PROPERTY, 0);
+	private static final int MAX_PROBES = 8;
+
+	/*******************************************************************************
+	 * INSTANCE FIELDS
+	 ******************************************************************************/
+
+	private final LocalSearch locSearch;
+	private final long[] hashes; // 0 = empty slot
+	private final int[] costs;
+	private final int mask;
+	private int size;
+	private long lookups; // descents requested
+	private long hits; // descents skipped
+	private long revisits; // descents that ended in a cached local optimum
+	private long evictions;
+
+	/*******************************************************************************
+	 * CLASS CONSTRUCTOR
+	 ******************************************************************************/
+
+	EvaluationCache(LocalSearch aLocSearch)
+	{
+		this(aLocSearch, CAPACITY);
+	}
+
+	EvaluationCache(LocalSearch aLocSearch, int capacity)
+	{
+		locSearch = aLocSearch;
+		int slots = 0;
+		if( capacity > 0 )
+			slots = Integer.highestOneBit(Math.max(capacity, MAX_PROBES) - 1) << 1;
+		hashes = new long[slots];
+		costs = new int[slots];
+		mask = slots - 1;
+	}
+
+	/*******************************************************************************
+	 * METHOD globalImprovement()
+	 * Same as LocalSearch.globalImprovement(), unless aSol is a cached local
+	 *  optimum. The local optimum reached is added to the cache.
+	 ******************************************************************************/
+
+	void globalImprovement(PFSPSolution aSol)
+	{
+		if( hashes.length == 0 )
+		{
+			locSearch.globalImprovement(aSol);
+			return;
+		}
+		lookups++;
+		if( contains(aSol.getHash(), aSol.getCosts()) )
+		{
+			hits++;
+			return;
+		}
+		locSearch.globalImprovement(aSol);
+		if( !put(aSol.getHash(), aSol.getCosts()) )
+			revisits++;
+	}
+
+	boolean contains(long hash, int cost)
+	{
+		hash = hash == 0 ? 1 : hash;
+		for( int i = 0; i < MAX_PROBES; i++ )
+		{
+			int slot = ((int) hash + i) & mask;
+			if( hashes[slot] == 0 )
+				return false;
+			if( hashes[slot] == hash && costs[slot] == cost )
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the entry, returns false if it was already in the cache.
+	 */
+	boolean put(long hash, int cost)
+	{
+		hash = hash == 0 ? 1 : hash;
+		for( int i = 0; i < MAX_PROBES; i++ )
+		{
+			int slot = ((int) hash + i) & mask;
+			if( hashes[slot] == 0 )
+			{
+				hashes[slot] = hash;
+				costs[slot] = cost;
+				size++;
+				return true;
+			}
+			if( hashes[slot] == hash && costs[slot] == cost )
+				return false;
+		}
+		int slot = (int) hash & mask;
+		hashes[slot] = hash;
+		costs[slot] = cost;
+		evictions++;
+		return true;
+	}
+
+	/*******************************************************************************
+	 * GET METHODS
+	 ******************************************************************************/
+
+	boolean isEnabled()
+	{
+		return hashes.length > 0;
+	}
+
+	long getLookups()
+	{
+		return lookups;
+	}
+
+	long getHits()
+	{
+		return hits;
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD toString()
+	 ******************************************************************************/
+
+	public String toString()
+	{
+		double rate = lookups == 0 ? 0.0 : 100.0 * hits / lookups;
+		return "EvaluationCache: " + size + "/" + hashes.length + " entries, "
+				+ lookups + " lookups, " + hits + " hits ("
+				+ OptUtility.roundTwoDecimals(rate) + "%), " + revisits
+				+ " revisits, " + evictions + " evictions";
+	}
+
+	/*******************************************************************************
+	 * METHOD zobristKey()
+	 * Random key of job at position pos (splitmix64 of the pair), the hash of a
+	 *  permutation is the xor of the keys of all its positions
+	 ******************************************************************************/
+
+	static long zobristKey(int pos, int job)
+	{
+		long z = (((long) pos << 32) | job) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
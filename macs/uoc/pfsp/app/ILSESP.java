@@ -21,14 +21,12 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.RandomAccessFile;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
 
 import macs.heuristics.PatternHeuristic;
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.Edge;
 import macs.ontologies.entities.NodeList;
 import macs.ontologies.entities.Solution;
@@ -38,7 +36,6 @@ import macs.ontologies.entities.problems.SolutionElements;
 import macs.uoc.api.Test;
 import macs.uoc.cvrp.VRPSolution;
 import macs.uoc.pfsp.api.PFSPInputs;
-import macs.uoc.pfsp.api.PFSPJob;
 import macs.uoc.pfsp.app.PFSPSolution;
 import macs.util.OptUtility;
 
@@ -74,10 +71,13 @@ import macs.util.OptUtility;
 
 			//List<Double> local = new ArrayList<Double>();
 			//0. Get the first NEH 
-			RandNEHT nehtAlg = new RandNEHT(aTest, aInputs); // Rand NEH with Taillard's
+			PFSPInstance instance = PFSPInstance.valueOf(aInputs); // flat instance shared by all the procedures
+			Randomness random = new Randomness(aTest, instance); // shared by both
+			RandNEHT nehtAlg = new RandNEHT(aTest, instance, random); // Rand NEH with Taillard's
 													// accel.
-			LocalSearch locSearch = new LocalSearch(aTest, aInputs); // Local Search procedures
-			PFSPJob[] effList = createEffList(aInputs);
+			LocalSearch locSearch = new LocalSearch(aTest, instance, random); // Local Search procedures
+			EvaluationCache evalCache = new EvaluationCache(locSearch); // known local optima
+			int[] effList = instance.createEffList();
 
 			long startTime = ElapsedTime.systemTime();
 			PFSPSolution nehSol = nehtAlg.solve(effList, false); // Computation of the NEH
@@ -104,6 +104,7 @@ import macs.util.OptUtility;
 			
 			//maxTime = TIME_FACTOR;
 			double maxTime = aTest.getMaxTime();		
+			int target = instance.getTargetCosts(aTest); // stop if reached
 			// 1. CONSTRUCT A RANDOMIZED STARTING POINT
 			int nTrials = 0;
 			do {
@@ -127,7 +128,7 @@ import macs.util.OptUtility;
 
 			PFSPSolution bestStochSol = bestSol;
 
-			while (elapsed < maxTime) {
+			while (elapsed < maxTime && bestSol.getCosts() > target) {
 				// 3.0 Use a copy of the baseSol to explore
 				PFSPSolution currentSol = baseSol.clone();
 
@@ -135,7 +136,7 @@ import macs.util.OptUtility;
 				locSearch.enhancedSwap(currentSol);
 				
 				// 3.2 Local Search
-				locSearch.globalImprovement(currentSol);
+				evalCache.globalImprovement(currentSol);
 
 				// 3.3 Update Elapsed time
 				elapsed = ElapsedTime.calcElapsed(startTime,
@@ -162,6 +163,9 @@ import macs.util.OptUtility;
 				}
 			}
 
+			reportTarget("ILSESP", bestSol, target, elapsed, maxTime);
+			if (evalCache.isEnabled())
+				System.out.println(evalCache);
 		
 			// 4. Set output
 			//Outputs output = new Outputs(nehSol, bestSol);
@@ -170,7 +174,7 @@ import macs.util.OptUtility;
 			
 		}
 		
-		public static Solution solve(Solution solution, PFSPTest aTest, PFSPInputs aInputs){
+		public static Solution solve(Solution solution, PFSPTest aTest, PFSPInputs aInputs, SolverContext context){
 			
 			// DEMON PARAMETERS
 			int delta;
@@ -180,14 +184,17 @@ import macs.util.OptUtility;
 				//System.out.println("Ils "+ed.getFirst()+","+ed.getSecond()+"  "+ed.getCosts());
 			
 			//0. Get the first NEH 
-			RandNEHT nehtAlg = new RandNEHT(aTest, aInputs); // Rand NEH with Taillard's
+			PFSPInstance instance = PFSPInstance.valueOf(aInputs); // flat instance shared by all the procedures
+			Randomness random = new Randomness(aTest, instance); // shared by both
+			RandNEHT nehtAlg = new RandNEHT(aTest, instance, random); // Rand NEH with Taillard's
 													// accel.
-			LocalSearch locSearch = new LocalSearch(aTest, aInputs); // Local Search procedures
+			LocalSearch locSearch = new LocalSearch(aTest, instance, random); // Local Search procedures
+			EvaluationCache evalCache = new EvaluationCache(locSearch); // known local optima
 			
-			PFSPJob[] effList = createEffList(aInputs);		
+			int[] effList = instance.createEffList();		
 			List<Integer> fromEdges = PatternHeuristic.edgesToList(solution.getEdges());
 			
-			PFSPJob[] newEfflist = reOrderEfflist(fromEdges,effList);
+			int[] newEfflist = reOrderEfflist(fromEdges,effList,instance);
 
 			long startTime = ElapsedTime.systemTime();
 			PFSPSolution nehSol = nehtAlg.solve(newEfflist, true); // Computation of the NEH
@@ -218,6 +225,7 @@ import macs.util.OptUtility;
 			
 			//maxTime = TIME_FACTOR;
 			double maxTime = aTest.getMaxTime();
+			int target = instance.getTargetCosts(aTest); // stop if reached
 			// 1. CONSTRUCT A RANDOMIZED STARTING POINT
 			int nTrials = 0;
 			do {
@@ -243,7 +251,7 @@ import macs.util.OptUtility;
 			//startCostToFile();
 
 			//while( nter == 0 ||nter < 500) //elapsed < aTest.getMaxTime() )	   
-			while( elapsed < aTest.getMaxTime() )	 
+			while( elapsed < aTest.getMaxTime() && bestSol.getCosts() > target )	 
 	        {
 				// 3.0 Use a copy of the baseSol to explore
 				PFSPSolution currentSol = baseSol.clone();
@@ -253,7 +261,7 @@ import macs.util.OptUtility;
 				locSearch.enhancedSwap(currentSol);
 
 				// 3.2 Local Search
-				locSearch.globalImprovement(currentSol);
+				evalCache.globalImprovement(currentSol);
 
 				// 3.3 Update Elapsed time
 				elapsed = ElapsedTime.calcElapsed(startTime,
@@ -287,7 +295,10 @@ import macs.util.OptUtility;
 				nter++;
 			}
 
-			SolutionWrapper.getInstance().setLocalOpt(bestSol.getCosts());
+			reportTarget("ILSESP", bestSol, target, elapsed, maxTime);
+			if (evalCache.isEnabled())
+				System.out.println(evalCache);
+			context.setLocalOpt(bestSol.getCosts());
 			// 4. Set output
 			//Outputs output = new Outputs(nehSol, bestSol);
 			return getResultSolution(bestSol, solution, false);
@@ -295,36 +306,40 @@ import macs.util.OptUtility;
 			
 		}
 		/*******************************************************************************
-		 * PRIVATE METHOD createEffList()
+		 * METHOD reportTarget()
+		 * Prints the time saved when a search stopped because bestSol reached the
+		 *  target (lower bound or known upper bound)
 		 ******************************************************************************/
 
-		private static PFSPJob[] createEffList(PFSPInputs inputs) {
-			
-			PFSPJob[] array = inputs.getJobs();
-			// Sort using the compareTo() method of the Job class (TIE ISSUE #1)
-			Arrays.sort(array);
-			return array;
+		static void reportTarget(String algorithm, PFSPSolution bestSol, int target,
+				double elapsed, double maxTime){
+			if(bestSol.getCosts() <= target && elapsed < maxTime){
+				System.out.println(algorithm + ": target " + target + " reached (costs "
+						+ bestSol.getCosts() + ") after " + OptUtility.roundTwoDecimals(elapsed)
+						+ " sec., " + OptUtility.roundTwoDecimals(maxTime - elapsed) + " sec. saved");
+			}
 		}
+
+		/*******************************************************************************
+		 * PRIVATE METHOD reOrderEfflist()
+		 * Moves the jobs named in list (by id) to the end of the efflist, in the
+		 *  order they appear in list. Works on job indexes of the instance.
+		 ******************************************************************************/
 		
-		private static PFSPJob[] reOrderEfflist(List<Integer> list, PFSPJob[] efflist){
+		static int[] reOrderEfflist(List<Integer> list, int[] efflist, PFSPInstance instance){
 			//System.out.println(" newJobs "+ list);
-			List<PFSPJob> jobs = new LinkedList<PFSPJob>(Arrays.asList(efflist));
-			LinkedList<PFSPJob> jobsCopy = new LinkedList<PFSPJob>(jobs);
-			Collections.copy(jobsCopy, jobs);
+			int[] output = efflist.clone();
+			int last = output.length - 1;
 			
 			if(!list.isEmpty()){
 				for(Integer i : list){
-					//System.out.println();
-					for(PFSPJob job : jobsCopy){					
-						//System.out.println();
-						if(i == job.getId()){
-							
-							jobs.remove(job);						
-							jobs.add(job);
-							
-							//System.out.println();
+					for(int pos = 0; pos <= last; pos++){
+						int job = output[pos];
+						if(i == instance.getId(job)){
+							System.arraycopy(output, pos + 1, output, pos, last - pos);
+							output[last] = job;
+							break;
 						}
-						
 					}
 				}
 			}
@@ -332,22 +347,22 @@ import macs.util.OptUtility;
 				//System.out.println("Empty");
 				//System.exit(1);
 			}
-			PFSPJob[] output = jobs.toArray(new PFSPJob[jobs.size()]);
 			return output;
 		}
 	
 		
 		
-	private static Solution getResultSolution(PFSPSolution psol,Solution  solution,boolean finalrun){
+	static Solution getResultSolution(PFSPSolution psol,Solution  solution,boolean finalrun){
 	    	
 			
 			//List<SolutionElements> sList = new LinkedList<SolutionElements>();
 			NodeList nList = new NodeList();
 			List<Integer> jobNames = new ArrayList<Integer>();
-			PFSPJob[] jobs = psol.getJobs();
+			PFSPInstance instance = psol.getInstance();
+			int[] jobs = psol.getJobs();
 			for(int i = 0; i < jobs.length;i++){
 				//sList.add(nodeToJobData(jobs[i]));
-				jobNames.add(jobs[i].getId());
+				jobNames.add(instance.getId(jobs[i]));
 						
 			}
 			nList.setIntList(jobNames);
@@ -369,7 +384,7 @@ import macs.util.OptUtility;
 	    
 	   
 	    
-	    private static SolutionData getOutputSolution(PFSPSolution psol){
+	    static SolutionData getOutputSolution(PFSPSolution psol){
 			SolutionData result = new SolutionData();
 			
 			
@@ -377,11 +392,12 @@ import macs.util.OptUtility;
 			List<SolutionElements> sList = new LinkedList<SolutionElements>();
 			NodeList nList = new NodeList();
 			List<Integer> jobNames = new ArrayList<Integer>();
-			PFSPJob[] jobs = psol.getJobs();
+			PFSPInstance instance = psol.getInstance();
+			int[] jobs = psol.getJobs();
 			
 			for(int i = 0; i < jobs.length;i++){
-				sList.add(nodeToJobData(jobs[i]));
-				jobNames.add(jobs[i].getId());
+				sList.add(nodeToJobData(instance, jobs[i]));
+				jobNames.add(instance.getId(jobs[i]));
 						
 			}
 		
@@ -395,13 +411,13 @@ import macs.util.OptUtility;
 			
 			return result;
 		}
-	    private static SolutionElements nodeToJobData(PFSPJob job){
+	    private static SolutionElements nodeToJobData(PFSPInstance instance, int job){
 	    	JobData jobData = new JobData();   
-	    	jobData.setId(job.getId());
-	    	for(int i = 0; i < job.getProcessingTimes().length;i++){
-	    		jobData.setProcessingTime(i, job.getProcessingTime(i));    	
+	    	jobData.setId(instance.getId(job));
+	    	for(int i = 0; i < instance.getNumberOfMachines();i++){
+	    		jobData.setProcessingTime(i, instance.getProcessingTime(job, i));    	
 	    	}
-	    	jobData.setTotalProcessingTime(job.getTotalProcessingTime());
+	    	jobData.setTotalProcessingTime(instance.getTotalProcessingTime(job));
 	    	
 	    	
 	    	return jobData;
@@ -409,8 +425,9 @@ import macs.util.OptUtility;
 	    }
 	    
 	 private static PFSPSolution getPFSPSolution(Solution sol, PFSPInputs aInputs){
-		 PFSPJob[] jobs = getSolJobs(sol,aInputs);
-		 PFSPSolution newSol = new PFSPSolution(aInputs.getNumberOfJobs(), aInputs.getNumberOfMachines());
+		 PFSPInstance instance = PFSPInstance.valueOf(aInputs);
+		 int[] jobs = getSolJobs(sol,instance);
+		 PFSPSolution newSol = new PFSPSolution(instance);
 		 newSol.setJob(jobs);
 		 for( int i = 1; i < aInputs.getNumberOfJobs(); i++ ) {
 			 newSol.improveByShiftingJobToLeft(i);
@@ -419,14 +436,13 @@ import macs.util.OptUtility;
 	 }
 
 
-	 private static PFSPJob[] getSolJobs(Solution sol,PFSPInputs aInputs){
+	 private static int[] getSolJobs(Solution sol,PFSPInstance instance){
 	    	List<Integer> list = sol.getFirstSolution().getIntList();	    	
-			PFSPJob[] jobList = new PFSPJob[list.size()];
-			PFSPJob[] oldJobs = aInputs.getJobs();
+			int[] jobList = new int[list.size()];
 			for(int i = 0; i < list.size();i++){
-				for(int j =0; j< oldJobs.length;j++){
-					if(list.get(i)==oldJobs[j].getId()){
-						jobList[i] = oldJobs[j];
+				for(int j =0; j< instance.getNumberOfJobs();j++){
+					if(list.get(i)==instance.getId(j)){
+						jobList[i] = j;
 					}
 				}	
 			
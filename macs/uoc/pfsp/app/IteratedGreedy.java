@@ -0,0 +1,180 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.app;
+
+import java.util.List;
+import java.util.Random;
+
+import macs.heuristics.PatternHeuristic;
+import macs.ontologies.SolverContext;
+import macs.ontologies.entities.Solution;
+import macs.ontologies.entities.SolutionData;
+import macs.uoc.pfsp.api.PFSPInputs;
+
+/***********************************************************************************
+ * Project SimScheduling - IteratedGreedy.java
+ *
+ * This class encapsulates an Iterated Greedy (IG) algorithm for the FSP
+ *  (Ruiz & Stutzle), run alongside ILSESP:
+ *  1. NEH solution (Taillard's accelerations) improved by local search.
+ *  2. Destruction: DESTRUCTION_SIZE jobs are removed at random.
+ *  3. Local search on the partial sequence.
+ *  4. Construction: the removed jobs are reinserted, one by one, at their best
+ *     position (Taillard's accelerations).
+ *  5. Local search on the complete sequence.
+ *  6. Acceptance: better solutions are always accepted, worse ones with
+ *     probability exp(-delta / T), T = TEMPERATURE * sum(p) / (10 * n * m).
+ **********************************************************************************/
+
+public class IteratedGreedy {
+
+	/*******************************************************************************
+	 * CONSTANT FIELDS
+	 ******************************************************************************/
+
+	private static final int DESTRUCTION_SIZE = 4; // d, jobs removed per iteration
+	private static final double TEMPERATURE = 0.4; // T factor
+
+	/*******************************************************************************
+	 * PUBLIC METHOD run()
+	 * Used by the launcher: IG from the classical NEH solution
+	 *******************************************************************************/
+
+	public static SolutionData run(PFSPTest aTest, PFSPInputs aInputs) {
+		PFSPInstance instance = PFSPInstance.valueOf(aInputs);
+		RandNEHT nehtAlg = new RandNEHT(aTest, instance); // Rand NEH with Taillard's
+													// accel.
+		long startTime = ElapsedTime.systemTime();
+		PFSPSolution nehSol = nehtAlg.solve(instance.createEffList(), false);
+		nehSol.setTime(ElapsedTime.calcElapsed(startTime,
+				ElapsedTime.systemTime()));
+
+		PFSPSolution bestSol = iterate(aTest, instance, nehSol);
+
+		// Set output
+		return ILSESP.getOutputSolution(bestSol);
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD solve()
+	 * Used by the agents: IG from the best randomized NEH built with the job
+	 *  order given by the edges of solution
+	 *******************************************************************************/
+
+	public static Solution solve(Solution solution, PFSPTest aTest,
+			PFSPInputs aInputs, SolverContext context) {
+		PFSPInstance instance = PFSPInstance.valueOf(aInputs);
+		RandNEHT nehtAlg = new RandNEHT(aTest, instance); // Rand NEH with Taillard's
+													// accel.
+		int[] effList = instance.createEffList();
+		List<Integer> fromEdges = PatternHeuristic.edgesToList(solution.getEdges());
+		int[] newEfflist = ILSESP.reOrderEfflist(fromEdges, effList, instance);
+
+		long startTime = ElapsedTime.systemTime();
+		PFSPSolution nehSol = nehtAlg.solve(newEfflist, true);
+		int nTrials = 0;
+		PFSPSolution baseSol = nehSol;
+		do {
+			PFSPSolution newSol = nehtAlg.solve(newEfflist, true);
+			if (newSol.getCosts() < baseSol.getCosts()) {
+				baseSol = newSol;
+			}
+			nTrials++;
+		} while (baseSol.getCosts() >= nehSol.getCosts()
+				&& nTrials <= instance.getNumberOfJobs());
+		baseSol.setTime(ElapsedTime.calcElapsed(startTime,
+				ElapsedTime.systemTime()));
+
+		PFSPSolution bestSol = iterate(aTest, instance, baseSol);
+
+		context.setLocalOpt(bestSol.getCosts());
+		// Set output
+		return ILSESP.getResultSolution(bestSol, solution, false);
+	}
+
+	/*******************************************************************************
+	 * PRIVATE METHOD iterate()
+	 * IG main loop from startSol during aTest.getMaxTime() seconds
+	 *******************************************************************************/
+
+	private static PFSPSolution iterate(PFSPTest aTest, PFSPInstance instance,
+			PFSPSolution startSol) {
+		int nJobs = instance.getNumberOfJobs();
+		int d = Math.min(DESTRUCTION_SIZE, nJobs - 1);
+		double temperature = TEMPERATURE * calcTemperatureBase(instance);
+		int target = instance.getTargetCosts(aTest); // stop if reached
+		Random rng = aTest.getRandom();
+		LocalSearch locSearch = new LocalSearch(aTest, instance); // Local Search procedures
+
+		long startTime = ElapsedTime.systemTime();
+		double elapsed = 0.0;
+
+		// 1. LOCAL SEARCH ON THE STARTING SOLUTION
+		PFSPSolution currentSol = startSol;
+		locSearch.globalImprovement(currentSol);
+		PFSPSolution bestSol = currentSol.clone();
+
+		while (elapsed < aTest.getMaxTime() && d > 0
+				&& bestSol.getCosts() > target) {
+			PFSPSolution newSol = currentSol.clone();
+
+			// 2. Destruction
+			locSearch.destruction(newSol, d);
+
+			// 3. Local search on the partial sequence
+			locSearch.partialJobShifting(newSol, nJobs - d);
+
+			// 4. Construction (sets the costs of newSol)
+			locSearch.construction(newSol, d);
+
+			// 5. Local search
+			locSearch.globalImprovement(newSol);
+
+			elapsed = ElapsedTime.calcElapsed(startTime,
+					ElapsedTime.systemTime());
+
+			// 6. Acceptance criterion
+			int delta = newSol.getCosts() - currentSol.getCosts();
+			if (delta < 0) {
+				currentSol = newSol;
+				if (currentSol.getCosts() < bestSol.getCosts()) {
+					bestSol = currentSol.clone();
+					bestSol.setTime(elapsed);
+				}
+			} else if (rng.nextDouble() <= Math.exp(-delta / temperature)) {
+				currentSol = newSol;
+			}
+		}
+		ILSESP.reportTarget("IteratedGreedy", bestSol, target, elapsed,
+				aTest.getMaxTime());
+		return bestSol;
+	}
+
+	/*******************************************************************************
+	 * PRIVATE METHOD calcTemperatureBase()
+	 * sum of all processing times / (10 * nJobs * nMachines)
+	 ******************************************************************************/
+
+	private static double calcTemperatureBase(PFSPInstance instance) {
+		int nJobs = instance.getNumberOfJobs();
+		int nMachines = instance.getNumberOfMachines();
+		double sum = 0.0;
+		for (int i = 0; i < nJobs; i++) {
+			sum += instance.getTotalProcessingTime(i);
+		}
+		return sum / (10 * nJobs * nMachines);
+	}
+}
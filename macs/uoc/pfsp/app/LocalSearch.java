@@ -14,10 +14,8 @@
  * If not, see <http://www.gnu.org/licenses/>.
  */
 package macs.uoc.pfsp.app;
-import java.util.ArrayList;
 
 import macs.uoc.pfsp.api.PFSPInputs;
-import macs.uoc.pfsp.api.PFSPJob;
 
 /***********************************************************************************
  * Project SimScheduling -LocalSearch.java
@@ -38,6 +36,8 @@ public class LocalSearch
     private PFSPTest aTest; // Test to run (including parameters and instance's name)
     private PFSPInputs inputs; // Instance inputs
     private Randomness random;
+    private TaillardBuffers buffers; // Scratch matrices for the Taillard's accel.
+    private int[] removed; // Jobs removed by destruction()
 
     private int[] positions; // Array of randomly selected positions
     private int nJobs; // #Jobs
@@ -48,12 +48,19 @@ public class LocalSearch
       
     public LocalSearch(PFSPTest test, PFSPInputs inputs2)
     {     
+    	this(test, inputs2, new Randomness(test, inputs2));
+    }
+
+    public LocalSearch(PFSPTest test, PFSPInputs inputs2, Randomness aRandom)
+    {
     	aTest = test;
     	inputs = inputs2;
-        random = new Randomness(aTest, inputs);
+        random = aRandom;
 
-    	positions = new int[nJobs];
         nJobs = inputs.getNumberOfJobs();
+    	positions = new int[nJobs];
+        buffers = new TaillardBuffers(nJobs, inputs.getNumberOfMachines());
+        removed = new int[nJobs];
     }				
 
     public void globalImprovement(PFSPSolution aSol)
@@ -81,18 +88,19 @@ public class LocalSearch
 	
 	public void randomJobShifting(PFSPSolution aSol)
     {
-        positions = random.calcPositionsArray("uniform"); //uniform
+        random.calcPositionsArray(nJobs, "uniform", positions); //uniform
 
 		for( int i = 0; i < nJobs - 1; i++ )
         {
 			int j = positions[i];
 			if( j < nJobs - 1)
 			{
-				PFSPJob aJob = aSol.getJobs()[j];
+				int aJob = aSol.getJobs()[j];
                 System.arraycopy(aSol.getJobs(), j+1, aSol.getJobs(), j, nJobs-1-j);
 				aSol.getJobs()[nJobs - 1] = aJob;
+				aSol.markChanged(j);
 			}
-			aSol.improveByShiftingJobToLeft(nJobs - 1);	
+			aSol.improveByShiftingJobToLeft(nJobs - 1, buffers);	
 		}
 	}
 
@@ -111,20 +119,20 @@ public class LocalSearch
         swapJobs(aSol, posA, posB);
         if( posA < posB )
         {
-            aSol.improveByShiftingJobToLeft(posA);
-            aSol.improveByShiftingJobToLeft(posB);
+            aSol.improveByShiftingJobToLeft(posA, buffers);
+            aSol.improveByShiftingJobToLeft(posB, buffers);
         }
         else
         {
-            aSol.improveByShiftingJobToLeft(posB);
-            aSol.improveByShiftingJobToLeft(posA);
+            aSol.improveByShiftingJobToLeft(posB, buffers);
+            aSol.improveByShiftingJobToLeft(posA, buffers);
         }
-        aSol.setCosts(aSol.calcTotalCosts(nJobs));
+        aSol.updateCosts();
     }
     
     public void swapJobs(PFSPSolution aSol, int posA, int posB)
     {        
-        PFSPJob aux = aSol.getJobs()[posA];
+        int aux = aSol.getJobs()[posA];
         aSol.setJob(posA,aSol.getJobs()[posB]);
         aSol.setJob(posB,aux);
     }
@@ -141,7 +149,7 @@ public class LocalSearch
             posB = random.getRandomPosition(nJobs, "uniform");
 
         swapJobs(aSol, posA, posB);
-        aSol.setCosts(aSol.calcTotalCosts(nJobs));
+        aSol.updateCosts();
     }
 
     public void adjacentSwap(PFSPSolution aSol, int nPairs)
@@ -151,26 +159,81 @@ public class LocalSearch
             int pos = random.getRandomPosition(nJobs-1, "uniform");
             swapJobs(aSol, pos, pos+1);
         }
-        aSol.setCosts(aSol.calcTotalCosts(nJobs));
+        aSol.updateCosts();
     }
 
     public void randomDestructionConstruction(PFSPSolution aSol, int d)
     {
-		ArrayList<PFSPJob> jobList = new ArrayList<PFSPJob>();
+        destruction(aSol, d);
+        construction(aSol, d);
+	}
+
+    /*******************************************************************************
+	* PUBLIC METHOD destruction()
+    * Removes d jobs at random and puts them, in order of removal, at the end of
+    * the sequence (positions nJobs-d...nJobs-1). The first nJobs-d jobs are the
+    * partial sequence.
+	*******************************************************************************/
+
+    public void destruction(PFSPSolution aSol, int d)
+    {
 		for(int i = 0; i < d; i++ )
 		{
             int pos = random.getRandomPosition(nJobs - i, "uniform");
-			jobList.add(aSol.getJobs()[pos]);
+			removed[i] = aSol.getJobs()[pos];
             System.arraycopy(aSol.getJobs(), pos+1, aSol.getJobs(), pos, nJobs-1 - pos);
+            aSol.markChanged(pos);
 		}
+        System.arraycopy(removed, 0, aSol.getJobs(), nJobs - d, d);
+        aSol.markChanged(nJobs - d);
+	}
 
+    /*******************************************************************************
+	* PUBLIC METHOD construction()
+    * Reinserts the last d jobs, one at a time, at their best position of the
+    * partial sequence (Taillard's accelerations). Updates the solution costs.
+	*******************************************************************************/
+
+    public void construction(PFSPSolution aSol, int d)
+    {
 		for( int i = 0; i < d; i++ )
-		{
-			aSol.getJobs()[nJobs - d + i] = jobList.get(i);
-			aSol.improveByShiftingJobToLeft(nJobs - d + i);
-		}
+			aSol.improveByShiftingJobToLeft(nJobs - d + i, buffers);
 	}
 
+    /*******************************************************************************
+	* PUBLIC METHOD partialJobShifting()
+    * randomJobShifting() over the partial sequence made of the first nUsedJobs
+    * jobs, repeated while its makespan improves. Jobs after nUsedJobs are not
+    * touched.
+	*******************************************************************************/
+
+    public void partialJobShifting(PFSPSolution aSol, int nUsedJobs)
+    {
+        if( nUsedJobs < 2 )
+            return;
+        int last = nUsedJobs - 1;
+        int beforeCosts;
+        int afterCosts = aSol.calcCachedCosts(nUsedJobs);
+        do
+        {
+            beforeCosts = afterCosts;
+            random.calcPositionsArray(nUsedJobs, "uniform", positions);
+            for( int i = 0; i < last; i++ )
+            {
+                int j = positions[i];
+                if( j < last )
+                {
+                    int aJob = aSol.getJobs()[j];
+                    System.arraycopy(aSol.getJobs(), j+1, aSol.getJobs(), j, last-j);
+                    aSol.getJobs()[last] = aJob;
+                    aSol.markChanged(j);
+                }
+                aSol.improveByShiftingJobToLeft(last, buffers);
+            }
+            afterCosts = aSol.calcCachedCosts(nUsedJobs);
+        } while( afterCosts < beforeCosts );
+    }
+
     public void randomInsertion(PFSPSolution aSol)
     {
         int inPos = random.getRandomPosition(nJobs,"uniform");
@@ -196,16 +259,16 @@ public class LocalSearch
         }
         this.insertion(inPos,endPos,aSol);
 
-        aSol.improveByShiftingJobToLeft(endPos);
+        aSol.improveByShiftingJobToLeft(endPos, buffers);
 
-        aSol.setCosts(aSol.calcTotalCosts(nJobs));
+        aSol.updateCosts();
     }
 
     public void insertion(int inPos, int endPos, PFSPSolution aSol)
     {
         int dif = endPos - inPos;
 
-        PFSPJob inJob = aSol.getJobs()[inPos];
+        int inJob = aSol.getJobs()[inPos];
         if( dif > 0 )
         {
             System.arraycopy(aSol.getJobs(), inPos+1, aSol.getJobs(), inPos, dif);
@@ -216,20 +279,21 @@ public class LocalSearch
             System.arraycopy(aSol.getJobs(), endPos, aSol.getJobs(), endPos+1, dif);
         }
         aSol.getJobs()[endPos]= inJob;
+        aSol.markChanged(Math.min(inPos, endPos));
     }
 
     public void partialImprovement(PFSPSolution aSol)
     {
         int endPos = 0;
-        PFSPJob auxJob = aSol.getJobs()[endPos];
+        int auxJob = aSol.getJobs()[endPos];
 
         while(auxJob == aSol.getJobs()[endPos])
         {
             endPos = 1 + random.getRandomPosition(nJobs - 2, "uniform");
             auxJob = aSol.getJobs()[endPos];
-            aSol.improveByShiftingJobToLeft(endPos);
+            aSol.improveByShiftingJobToLeft(endPos, buffers);
         }
-        aSol.setCosts(aSol.calcTotalCosts(nJobs));
+        aSol.updateCosts();
     }
        
 }
\ No newline at end of file
@@ -0,0 +1,302 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import macs.uoc.pfsp.api.PFSPJob;
+import macs.uoc.pfsp.baker.BakerJob;
+import macs.util.RandomStreams;
+
+/***********************************************************************************
+ * Project SimScheduling - MonteCarloEvaluator.java
+ *
+ * Monte Carlo estimation of the expected makespan of permutations of a
+ *  stochastic FSP instance. The processing time of each job on each machine is
+ *  log-normal, with the mean of the instance (the deterministic time) and the
+ *  variance read by BakerInputsManager (0 = deterministic time).
+ *
+ * Replication r always samples its processing times matrix from stream r of
+ *  the RandomStreams given, so all the permutations evaluated by the same
+ *  evaluator see the same matrices (common random numbers) and the results do
+ *  not depend on the number of threads.
+ *
+ * The replications are split in batches of BATCH_SIZE: a task samples the
+ *  matrices of its batch in bulk and then evaluates every permutation on them.
+ *  The batches run in a ForkJoinPool and their statistics are merged in batch
+ *  order. The matrices of the first nCached replications are kept, so the same
+ *  screening runs (e.g. FAST_SIMULATIONS) do not sample them again.
+ **********************************************************************************/
+
+public class MonteCarloEvaluator
+{
+	/*******************************************************************************
+	 * CONSTANT FIELDS
+	 ******************************************************************************/
+
+	private static final int BATCH_SIZE = 64; // replications per task
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+
+	/*******************************************************************************
+	 * INSTANCE FIELDS
+	 ******************************************************************************/
+
+	private final PFSPInstance instance;
+	private final RandomStreams streams; // stream r = replication r
+	private final int nJobs;
+	private final int nMachines;
+	private final double[] logMeans; // log-normal parameters, job * nMachines + machine
+	private final double[] logSigmas; // 0 for deterministic times
+	private final boolean stochastic; // some variance > 0
+	private final double[][] cache; // sampled matrices of the cached batches
+
+	/*******************************************************************************
+	 * CLASS CONSTRUCTOR
+	 ******************************************************************************/
+
+	public MonteCarloEvaluator(PFSPInstance anInstance, RandomStreams aStreams,
+			int nCached)
+	{
+		instance = anInstance;
+		streams = aStreams;
+		nJobs = instance.getNumberOfJobs();
+		nMachines = instance.getNumberOfMachines();
+		logMeans = new double[nJobs * nMachines];
+		logSigmas = new double[nJobs * nMachines];
+
+		boolean anyVariance = false;
+		for( int i = 0; i < nJobs; i++ )
+		{
+			PFSPJob job = instance.getJob(i);
+			for( int j = 0; j < nMachines; j++ )
+			{
+				int cell = i * nMachines + j;
+				double mean = instance.getProcessingTime(i, j);
+				double var = getVariance(job, j);
+				if( var > 0 && mean > 0 )
+				{
+					// Log-normal with the given mean and variance
+					double s2 = Math.log(1 + var / (mean * mean));
+					logSigmas[cell] = Math.sqrt(s2);
+					logMeans[cell] = Math.log(mean) - s2 / 2;
+					anyVariance = true;
+				}
+				else
+					logMeans[cell] = mean;
+			}
+		}
+		stochastic = anyVariance;
+		cache = new double[(Math.max(nCached, 0) + BATCH_SIZE - 1) / BATCH_SIZE][];
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD isStochastic()
+	 ******************************************************************************/
+
+	public boolean isStochastic()
+	{
+		return stochastic;
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD evaluate()
+	 * Simulates the solution nReplications times, sets its expected costs and
+	 *  returns the statistics
+	 ******************************************************************************/
+
+	public SimulationStats evaluate(PFSPSolution aSol, int nReplications)
+	{
+		SimulationStats stats = evaluate(aSol.getJobs(), nReplications);
+		aSol.setExpCosts(stats.getMean());
+		return stats;
+	}
+
+	public SimulationStats evaluate(int[] jobs, int nReplications)
+	{
+		List<int[]> list = new ArrayList<int[]>(1);
+		list.add(jobs);
+		return evaluate(list, 0, nReplications)[0];
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD evaluate()
+	 * Simulates replications first...first+nReplications-1 of every permutation
+	 *  (job indexes), with common random numbers. A later call with the next
+	 *  range continues the same runs (used to stop the simulation early).
+	 *  Throws an IllegalStateException if a batch fails or the thread is
+	 *  interrupted, so partial statistics are never returned.
+	 ******************************************************************************/
+
+	public SimulationStats[] evaluate(List<int[]> perms, long first,
+			int nReplications)
+	{
+		int nPerms = perms.size();
+		long end = first + nReplications;
+		List<Callable<SimulationStats[]>> tasks =
+				new ArrayList<Callable<SimulationStats[]>>();
+		for( long from = first; from < end; )
+		{
+			long to = Math.min(end, (from / BATCH_SIZE + 1) * BATCH_SIZE);
+			tasks.add(new Batch(perms, from, (int) (to - from)));
+			from = to;
+		}
+
+		SimulationStats[] stats = new SimulationStats[nPerms];
+		for( int p = 0; p < nPerms; p++ )
+			stats[p] = new SimulationStats();
+		try
+		{
+			List<Future<SimulationStats[]>> results = POOL.invokeAll(tasks);
+			for( Future<SimulationStats[]> result : results )
+			{
+				SimulationStats[] partial = result.get();
+				for( int p = 0; p < nPerms; p++ )
+					stats[p].merge(partial[p]);
+			}
+		}
+		// Statistics of only some batches must never pass as complete
+		catch( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Simulation interrupted", e);
+		}
+		catch( ExecutionException e )
+		{
+			throw new IllegalStateException("Simulation batch failed", e.getCause());
+		}
+		return stats;
+	}
+
+	/*******************************************************************************
+	 * PRIVATE METHODS
+	 ******************************************************************************/
+
+	private static double getVariance(PFSPJob job, int machine)
+	{
+		if( job instanceof BakerJob )
+			return ((BakerJob) job).getVariance(machine);
+		return 0.0;
+	}
+
+	/**
+	 * Samples the matrices of replications from...from+n-1 into times
+	 */
+	private void sample(long from, int n, double[] times)
+	{
+		int cells = nJobs * nMachines;
+		for( int r = 0; r < n; r++ )
+		{
+			Random rng = streams.stream(from + r);
+			int base = r * cells;
+			for( int cell = 0; cell < cells; cell++ )
+			{
+				double sigma = logSigmas[cell];
+				times[base + cell] = sigma == 0 ? logMeans[cell]
+						: Math.exp(logMeans[cell] + sigma * gaussian(rng));
+			}
+		}
+	}
+
+	/**
+	 * Returns the sampled matrices of the batch that starts at from (cached if
+	 *  it is one of the first nCached replications)
+	 */
+	private double[] getBatch(long from, int n)
+	{
+		int cells = nJobs * nMachines;
+		long index = from / BATCH_SIZE;
+		if( from % BATCH_SIZE != 0 || n != BATCH_SIZE || index >= cache.length )
+		{
+			double[] times = new double[n * cells];
+			sample(from, n, times);
+			return times;
+		}
+		synchronized( cache )
+		{
+			if( cache[(int) index] != null )
+				return cache[(int) index];
+		}
+		double[] times = new double[n * cells];
+		sample(from, n, times);
+		synchronized( cache )
+		{
+			cache[(int) index] = times;
+		}
+		return times;
+	}
+
+	private static double gaussian(Random rng)
+	{
+		// Box-Muller (one of the pair), the stream belongs to this thread
+		double u = 1.0 - rng.nextDouble();
+		return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * rng.nextDouble());
+	}
+
+	private double makespan(int[] jobs, double[] times, int base, double[] c)
+	{
+		for( int j = 0; j < nMachines; j++ )
+			c[j] = 0.0;
+		for( int i = 0; i < jobs.length; i++ )
+		{
+			int row = base + jobs[i] * nMachines;
+			c[0] += times[row];
+			for( int j = 1; j < nMachines; j++ )
+				c[j] = Math.max(c[j], c[j - 1]) + times[row + j];
+		}
+		return c[nMachines - 1];
+	}
+
+	/*******************************************************************************
+	 * CLASS Batch
+	 * Replications from...from+n-1 of all the permutations
+	 ******************************************************************************/
+
+	private class Batch implements Callable<SimulationStats[]>
+	{
+		private final List<int[]> perms;
+		private final long from;
+		private final int n;
+
+		Batch(List<int[]> somePerms, long aFrom, int anN)
+		{
+			perms = somePerms;
+			from = aFrom;
+			n = anN;
+		}
+
+		public SimulationStats[] call()
+		{
+			double[] times = getBatch(from, n);
+			double[] c = new double[nMachines];
+			int cells = nJobs * nMachines;
+			SimulationStats[] stats = new SimulationStats[perms.size()];
+			for( int p = 0; p < stats.length; p++ )
+			{
+				stats[p] = new SimulationStats();
+				int[] jobs = perms.get(p);
+				for( int r = 0; r < n; r++ )
+					stats[p].add(makespan(jobs, times, r * cells, c));
+			}
+			return stats;
+		}
+	}
+}
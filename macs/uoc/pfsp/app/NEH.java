@@ -16,8 +16,6 @@
 package macs.uoc.pfsp.app;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
@@ -63,8 +61,8 @@ public class NEH {
 		
 		//1.  Initalise the algorithm 
 		PFSPTest aTest = test;
-		PFSPInputs inputs = aInputs;
-		PFSPJob[] effList = createEffList(inputs);
+		PFSPInstance inputs = PFSPInstance.valueOf(aInputs);
+		int[] effList = inputs.createEffList();
 		int nJobs = inputs.getNumberOfJobs();
 		int nMachines = inputs.getNumberOfMachines();	
 		
@@ -88,7 +86,8 @@ public class NEH {
 		// solution
 		
 		PFSPSolution bestSol = nehSol;
-		while(elapsedTime < aTest.getMaxTime() )	   
+		int target = inputs.getTargetCosts(aTest); // stop if reached
+		while(elapsedTime < aTest.getMaxTime() && bestSol.getCosts() > target )	   
         {
             newSol = nehtAlg.solve(effList, true);
             //System.out.println("newSol"+newSol.getCosts());
@@ -101,6 +100,7 @@ public class NEH {
     				ElapsedTime.systemTime());
             nIter++;
         }
+		ILSESP.reportTarget("NEH", bestSol, target, elapsedTime, aTest.getMaxTime());
 
 		
 	
@@ -123,11 +123,12 @@ public class NEH {
 		int nMachines = aInputs.getNumberOfMachines();	
 		
 		//2. creatEfflist and then reorder
-		PFSPJob[] effList = createEffList(aInputs);
+		PFSPInstance instance = PFSPInstance.valueOf(aInputs);
+		int[] effList = instance.createEffList();
 		
 		List<Integer> fromEdges = PatternHeuristic.edgesToList(solution.getEdges());
 		
-		PFSPJob[] newEfflist = reOrderEfflist(fromEdges,effList);
+		int[] newEfflist = reOrderEfflist(fromEdges,effList,instance);
 		
 		
 		// DEMON PARAMETERSnull
@@ -138,7 +139,7 @@ public class NEH {
 		PFSPSolution newSol;
 			
 		
-		RandNEHT nehtAlg = new RandNEHT(aTest, aInputs); // Rand NEH with Taillard's accel.
+		RandNEHT nehtAlg = new RandNEHT(aTest, instance); // Rand NEH with Taillard's accel.
 
 
 		long startTime = ElapsedTime.systemTime();
@@ -172,36 +173,25 @@ public class NEH {
 		
 	}
 	/*******************************************************************************
-	 * PRIVATE METHOD createEffList()
+	 * PRIVATE METHOD reOrderEfflist()
+	 * Moves the jobs named in list (by id) to the end of the efflist, in the
+	 *  order they appear in list. Works on job indexes of the instance.
 	 ******************************************************************************/
-
-	private static PFSPJob[] createEffList(PFSPInputs inputs) {
-		
-		PFSPJob[] array = inputs.getJobs();
-		// Sort using the compareTo() method of the Job class (TIE ISSUE #1)
-		Arrays.sort(array);
-		return array;
-	}
 	
-	private static PFSPJob[] reOrderEfflist(List<Integer> list, PFSPJob[] efflist){
+	private static int[] reOrderEfflist(List<Integer> list, int[] efflist, PFSPInstance instance){
 		System.out.println(" newJobs "+ list);
-		List<PFSPJob> jobs = new LinkedList<PFSPJob>(Arrays.asList(efflist));
-		LinkedList<PFSPJob> jobsCopy = new LinkedList<PFSPJob>(jobs);
-		Collections.copy(jobsCopy, jobs);
+		int[] output = efflist.clone();
+		int last = output.length - 1;
 		
 		if(!list.isEmpty()){
 			for(Integer i : list){
-				//System.out.println();
-				for(PFSPJob job : jobsCopy){					
-					//System.out.println();
-					if(i == job.getId()){
-						
-						jobs.remove(job);						
-						jobs.add(job);
-						
-						//System.out.println();
+				for(int pos = 0; pos <= last; pos++){
+					int job = output[pos];
+					if(i == instance.getId(job)){
+						System.arraycopy(output, pos + 1, output, pos, last - pos);
+						output[last] = job;
+						break;
 					}
-					
 				}
 			}
 		}
@@ -209,7 +199,6 @@ public class NEH {
 			System.out.println("Empty");
 			//System.exit(1);
 		}
-		PFSPJob[] output = jobs.toArray(new PFSPJob[jobs.size()]);
 		return output;
 	}
 	
@@ -220,10 +209,11 @@ private static Solution getResultSolution(PFSPSolution psol,Solution  solution,b
 		//List<SolutionElements> sList = new LinkedList<SolutionElements>();
 		NodeList nList = new NodeList();
 		List<Integer> jobNames = new ArrayList<Integer>();
-		PFSPJob[] jobs = psol.getJobs();
+		PFSPInstance instance = psol.getInstance();
+		int[] jobs = psol.getJobs();
 		for(int i = 0; i < jobs.length-1;i++){
 			//sList.add(nodeToJobData(jobs[i]));
-			jobNames.add(jobs[i].getId());
+			jobNames.add(instance.getId(jobs[i]));
 					
 		}
 		nList.setIntList(jobNames);
@@ -248,11 +238,12 @@ private static Solution getResultSolution(PFSPSolution psol,Solution  solution,b
 		List<SolutionElements> sList = new LinkedList<SolutionElements>();
 		NodeList nList = new NodeList();
 		List<Integer> jobNames = new ArrayList<Integer>();
-		PFSPJob[] jobs = psol.getJobs();
+		PFSPInstance instance = psol.getInstance();
+		int[] jobs = psol.getJobs();
 		
 		for(int i = 0; i < jobs.length;i++){
-			sList.add(nodeToJobData(jobs[i]));
-			jobNames.add(jobs[i].getId());
+			sList.add(nodeToJobData(instance, jobs[i]));
+			jobNames.add(instance.getId(jobs[i]));
 					
 		}
 	
@@ -264,13 +255,13 @@ private static Solution getResultSolution(PFSPSolution psol,Solution  solution,b
 		
 		return result;
 	}
-    private static SolutionElements nodeToJobData(PFSPJob job){
+    private static SolutionElements nodeToJobData(PFSPInstance instance, int job){
     	JobData jobData = new JobData();   
-    	jobData.setId(job.getId());
-    	for(int i = 0; i < job.getProcessingTimes().length;i++){
-    		jobData.setProcessingTime(i, job.getProcessingTime(i));    	
+    	jobData.setId(instance.getId(job));
+    	for(int i = 0; i < instance.getNumberOfMachines();i++){
+    		jobData.setProcessingTime(i, instance.getProcessingTime(job, i));    	
     	}
-    	jobData.setTotalProcessingTime(job.getTotalProcessingTime());
+    	jobData.setTotalProcessingTime(instance.getTotalProcessingTime(job));
     	
     	
     	return jobData;
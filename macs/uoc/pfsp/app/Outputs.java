@@ -38,6 +38,8 @@ public class Outputs
     private PFSPSolution bestStochSol; 
 	private double[] detSols = null;
 	private double[] stochSols = null;
+	private SimulationStats detStats = null; // simulation of ourBestSol
+	private SimulationStats stochStats = null; // simulation of bestStochSol
     
 	/*******************************************************************************
      *  CLASS CONSTRUCTOR 
@@ -63,6 +65,11 @@ public class Outputs
     	stochSols = sSols;
     }
 
+    public void setStats(SimulationStats det, SimulationStats stoch){
+        detStats = det;
+        stochStats = stoch;
+    }
+
     public PFSPSolution getOurBestSol(){
         return ourBestSol;
     }
@@ -101,6 +108,10 @@ public class Outputs
             out.println("Our best stoch-sol (provided by the SS-GNEH)");
             out.println("--------------------------------------------");
             out.println(bestStochSol.toString(true));
+            if(detStats != null && stochStats != null){
+                out.println("Our best solution: " + detStats);
+                out.println("Our best stoch-sol: " + stochStats);
+            }
 
             
     	    out.close();
@@ -0,0 +1,197 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.app;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import macs.uoc.api.Test;
+import macs.uoc.pfsp.api.PFSPInputs;
+import macs.uoc.pfsp.api.PFSPJob;
+import macs.uoc.pfsp.base.TaillardLowerBound;
+
+/***********************************************************************************
+ * Project SimScheduling - PFSPInstance.java
+ *
+ * This class represents an FSP instance in a flat, read-only form. Processing
+ *  times are stored row by row in a single int[] (job * nMachines + machine), so
+ *  the makespan recurrences in PFSPSolution can walk them without going through
+ *  a PFSPJob object for every cell. Jobs are referred to by their index
+ *  (0...nJobs-1) in this instance; the PFSPJob objects are kept only to map an
+ *  index back to its job (id, expected times) when building outputs.
+ *
+ * The instance also implements PFSPInputs, so it can be handed to any code that
+ *  still works with the job objects.
+ **********************************************************************************/
+
+public class PFSPInstance implements PFSPInputs
+{
+	/*******************************************************************************
+	 * INSTANCE FIELDS
+	 ******************************************************************************/
+
+	private final int nJobs; // #Jobs
+	private final int nMachines; // #Machines
+	private final int[] times; // processing times, times[job * nMachines + machine]
+	private final int[] totalTimes; // total processing time of each job
+	private final PFSPJob[] jobs; // job objects, in index order
+	private final Map<PFSPJob, Integer> indexes; // job object -> index
+	private final int lowerBound; // Taillard's lower bound of the makespan
+
+	/*******************************************************************************
+	 * CLASS CONSTRUCTOR
+	 ******************************************************************************/
+
+	public PFSPInstance(PFSPInputs inputs)
+	{
+		nJobs = inputs.getNumberOfJobs();
+		nMachines = inputs.getNumberOfMachines();
+		times = new int[nJobs * nMachines];
+		totalTimes = new int[nJobs];
+		// Copy the array, later sorts of the inputs must not change the indexes
+		jobs = inputs.getJobs().clone();
+		indexes = new IdentityHashMap<PFSPJob, Integer>(2 * nJobs);
+
+		for( int i = 0; i < nJobs; i++ )
+		{
+			PFSPJob iJob = jobs[i];
+			int base = i * nMachines;
+			for( int j = 0; j < nMachines; j++ )
+				times[base + j] = iJob.getProcessingTime(j);
+			totalTimes[i] = iJob.getTotalProcessingTime();
+			indexes.put(iJob, i);
+		}
+		// Computed by the loader; inputs built from agent messages do not have it
+		int bound = inputs.getLowerBound();
+		lowerBound = bound > 0 ? bound : TaillardLowerBound.calcLowerBound(inputs);
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD valueOf()
+	 * Returns inputs itself if it is already a PFSPInstance, a new instance
+	 *  built from it otherwise.
+	 ******************************************************************************/
+
+	public static PFSPInstance valueOf(PFSPInputs inputs)
+	{
+		if( inputs instanceof PFSPInstance )
+			return (PFSPInstance) inputs;
+		return new PFSPInstance(inputs);
+	}
+
+	/*******************************************************************************
+	 * GET METHODS
+	 ******************************************************************************/
+
+	public int getNumberOfJobs()
+	{
+		return nJobs;
+	}
+
+	public int getNumberOfMachines()
+	{
+		return nMachines;
+	}
+
+	/**
+	 * Returns a copy of the job objects in index order.
+	 */
+	public PFSPJob[] getJobs()
+	{
+		return jobs.clone();
+	}
+
+	/**
+	 * Returns the flat processing times matrix. It is shared, do not modify it.
+	 */
+	public int[] getTimes()
+	{
+		return times;
+	}
+
+	public int getProcessingTime(int job, int machine)
+	{
+		return times[job * nMachines + machine];
+	}
+
+	public int getLowerBound()
+	{
+		return lowerBound;
+	}
+
+	/**
+	 * Returns the makespan at which a search can stop: the lower bound, or the
+	 *  target (known upper bound) of the test if it is given and higher.
+	 */
+	public int getTargetCosts(Test aTest)
+	{
+		int target = lowerBound;
+		if( aTest instanceof PFSPTest )
+			target = Math.max(target, ((PFSPTest) aTest).getTarget());
+		return target;
+	}
+
+	public int getTotalProcessingTime(int job)
+	{
+		return totalTimes[job];
+	}
+
+	public PFSPJob getJob(int job)
+	{
+		return jobs[job];
+	}
+
+	public int getId(int job)
+	{
+		return jobs[job].getId();
+	}
+
+	/**
+	 * Returns the index of aJob in this instance, or -1 if it does not belong to it.
+	 */
+	public int indexOf(PFSPJob aJob)
+	{
+		Integer index = indexes.get(aJob);
+		return index == null ? -1 : index.intValue();
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD indexesOf()
+	 * Converts an array of job objects (e.g. an efficiency list) into job indexes
+	 ******************************************************************************/
+
+	public int[] indexesOf(PFSPJob[] jobList)
+	{
+		int[] output = new int[jobList.length];
+		for( int i = 0; i < jobList.length; i++ )
+			output[i] = indexOf(jobList[i]);
+		return output;
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD createEffList()
+	 * Returns the job indexes sorted using the compareTo() method of the Job
+	 *  class (TIE ISSUE #1). The inputs are left untouched.
+	 ******************************************************************************/
+
+	public int[] createEffList()
+	{
+		PFSPJob[] array = jobs.clone();
+		Arrays.sort(array);
+		return indexesOf(array);
+	}
+}
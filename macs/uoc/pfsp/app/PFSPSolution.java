@@ -15,6 +15,8 @@
  */
 package macs.uoc.pfsp.app;
 
+import java.util.Arrays;
+
 import macs.uoc.pfsp.api.PFSPJob;
 
 /***********************************************************************************
@@ -24,6 +26,11 @@ import macs.uoc.pfsp.api.PFSPJob;
  * includes some important methods to be applied over a solution, like the
  * Taillard's accelerations to improve a given solution.
  * 
+ * The loops of the Taillard's accelerations are in TaillardKernel.
+ * 
+ * The sequence is stored as an array of job indexes of a PFSPInstance, and all
+ * the makespan recurrences read the flat processing times of that instance.
+ * 
  * Date of last revision (YYMMDD): 110407 (c) Angel A. Juan & Quim Castella -
  * http://ajuanp.wordpress.com
  **********************************************************************************/
@@ -39,23 +46,35 @@ public class PFSPSolution {
 	private int costs; // solution costs = end of processing time for all jobs
 	private double expcosts; //Stochastic solution cost
 	private int nJobs; // number of jobs in the problem
-	private PFSPJob[] jobs; // array of jobs in this solution
+	private int[] jobs; // job indexes (in the instance) in this solution
 	private int nMachines; // number of machines in the problem
 	private double time; // elapsed computational time (in seconds)
+	private final PFSPInstance instance; // instance the job indexes refer to
+	private final int[] times; // flat processing times of the instance
+	private int[] heads; // cached heads (e) of the sequence, heads[i * nMachines + j]
+	private int validHeads; // rows of heads that are up to date (0...validHeads-1)
+	private long[] hashes; // Zobrist hash of the prefixes, hashes[i] = positions 0...i-1
+	private int validHashes; // prefixes (positions) whose hash is up to date
 
 	/*******************************************************************************
 	 * CLASS CONSTRUCTOR
 	 ******************************************************************************/
 
-	public PFSPSolution(int nJobsInProblem, int nMachinesInProblem) {
+	public PFSPSolution(PFSPInstance anInstance) {
 		nInstances++;
 		id = nInstances;
 		costs = 0;
 		expcosts = 0;
-		nJobs = nJobsInProblem;
-		jobs = new PFSPJob[nJobs];
-		nMachines = nMachinesInProblem;
+		instance = anInstance;
+		times = instance.getTimes();
+		nJobs = instance.getNumberOfJobs();
+		jobs = new int[nJobs];
+		nMachines = instance.getNumberOfMachines();
 		time = 0;
+		heads = null;
+		validHeads = 0;
+		hashes = null;
+		validHashes = 0;
 	}
 
 	/*******************************************************************************
@@ -77,11 +96,27 @@ public class PFSPSolution {
 		time = t;
 	}
 
-	public void setJob(int pos, PFSPJob aJob) {
-		jobs[pos] = aJob;
+	public void setJob(int pos, int job) {
+		jobs[pos] = job;
+		markChanged(pos);
 	}
-	public void setJob(PFSPJob[] jobs) {
+	public void setJob(int[] jobs) {
 		this.jobs = jobs;
+		validHeads = 0;
+		validHashes = 0;
+	}
+
+	/**
+	 * To be called after changing the array returned by getJobs() directly:
+	 * pos is the leftmost position that changed. The cached heads after it are
+	 * recomputed by the next calcCachedCosts() or improveByShiftingJobToLeft(),
+	 * and the hash of the positions after it by the next getHash().
+	 */
+	public void markChanged(int pos) {
+		if (pos < validHeads)
+			validHeads = pos;
+		if (pos < validHashes)
+			validHashes = pos;
 	}
 
 	/*******************************************************************************
@@ -100,14 +135,45 @@ public class PFSPSolution {
 		return expcosts;
 	}
 
-	public PFSPJob[] getJobs() {
+	/**
+	 * Returns the job indexes in this solution (not a copy).
+	 */
+	public int[] getJobs() {
 		return jobs;
 	}
 
+	public int getJob(int pos) {
+		return jobs[pos];
+	}
+
+	/**
+	 * Returns the job object at position pos, for outputs only.
+	 */
+	public PFSPJob getPFSPJob(int pos) {
+		return instance.getJob(jobs[pos]);
+	}
+
+	public PFSPInstance getInstance() {
+		return instance;
+	}
+
 	public double getTime() {
 		return time;
 	}
 
+	/**
+	 * Returns the Zobrist hash of the sequence (see EvaluationCache). Only the
+	 * positions changed since the last call are hashed again.
+	 */
+	public long getHash() {
+		if (hashes == null)
+			hashes = new long[nJobs + 1];
+		for (int i = validHashes; i < nJobs; i++)
+			hashes[i + 1] = hashes[i] ^ EvaluationCache.zobristKey(i, jobs[i]);
+		validHashes = nJobs;
+		return hashes[nJobs];
+	}
+
 	public int getNJobs() {
 		return nJobs;
 	}
@@ -121,13 +187,23 @@ public class PFSPSolution {
 	 ******************************************************************************/
 	@Override
 	public PFSPSolution clone() {
-		PFSPSolution cloneSol = new PFSPSolution(nJobs, nMachines);
+		PFSPSolution cloneSol = new PFSPSolution(instance);
 
 		System.arraycopy(this.jobs, 0, cloneSol.getJobs(), 0, this.jobs.length);
 
 		cloneSol.setCosts(this.getCosts());
 		cloneSol.setExpCosts(this.getExpCosts());
 		cloneSol.setTime(this.getTime(),false);
+		if (validHeads > 0) {
+			cloneSol.ensureHeads();
+			System.arraycopy(heads, 0, cloneSol.heads, 0, validHeads * nMachines);
+			cloneSol.validHeads = validHeads;
+		}
+		if (validHashes > 0) {
+			cloneSol.hashes = new long[nJobs + 1];
+			System.arraycopy(hashes, 0, cloneSol.hashes, 0, validHashes + 1);
+			cloneSol.validHashes = validHashes;
+		}
 
 		return cloneSol;
 	}
@@ -142,45 +218,77 @@ public class PFSPSolution {
 		for (int column = 0; column < nMachines; column++)
 			for (int row = 0; row < nUsedJobs; row++) {
 				if (column == 0 && row == 0)
-					tcosts[0][0] = jobs[0].getExpProcessingTime(0);
+					tcosts[0][0] = getPFSPJob(0).getExpProcessingTime(0);
 				else if (column == 0)
 					tcosts[row][0] = tcosts[row - 1][0]
-							+ jobs[row].getExpProcessingTime(0);
+							+ getPFSPJob(row).getExpProcessingTime(0);
 				else if (row == 0)
 					tcosts[0][column] = tcosts[0][column - 1]
-							+ jobs[0].getExpProcessingTime(column);
+							+ getPFSPJob(0).getExpProcessingTime(column);
 				else {
 					double max = Math.max(tcosts[row - 1][column],
 							tcosts[row][column - 1]);
 					tcosts[row][column] = max
-							+ jobs[row].getProcessingTime(column);
+							+ times[jobs[row] * nMachines + column];
 				}
 			}
 		return tcosts[nUsedJobs - 1][nMachines - 1];
 	}
 
 	public int calcTotalCosts(int nUsedJobs) {
-		// nUsedJobs = # of jobs in the partially filled solution
+		return calcTotalCosts(nUsedJobs, new int[nMachines]);
+	}
 
-		int[][] tcosts = new int[nUsedJobs][nMachines];
-		for (int column = 0; column < nMachines; column++)
-			for (int row = 0; row < nUsedJobs; row++) {
-				if (column == 0 && row == 0)
-					tcosts[0][0] = jobs[0].getProcessingTime(0);
-				else if (column == 0)
-					tcosts[row][0] = tcosts[row - 1][0]
-							+ jobs[row].getProcessingTime(0);
-				else if (row == 0)
-					tcosts[0][column] = tcosts[0][column - 1]
-							+ jobs[0].getProcessingTime(column);
-				else {
-					int max = Math.max(tcosts[row - 1][column],
-							tcosts[row][column - 1]);
-					tcosts[row][column] = max
-							+ jobs[row].getProcessingTime(column);
-				}
+	public int calcTotalCosts(int nUsedJobs, TaillardBuffers buffers) {
+		Arrays.fill(buffers.c, 0);
+		return calcTotalCosts(nUsedJobs, buffers.c);
+	}
+
+	private int calcTotalCosts(int nUsedJobs, int[] c) {
+		// nUsedJobs = # of jobs in the partially filled solution
+		// Only the last row of the completion times is needed, so a single
+		// vector c[machine] (all zeros on entry) is updated job by job
+
+		for (int row = 0; row < nUsedJobs; row++) {
+			int base = jobs[row] * nMachines;
+			c[0] = c[0] + times[base];
+			for (int column = 1; column < nMachines; column++) {
+				int max = Math.max(c[column], c[column - 1]);
+				c[column] = max + times[base + column];
 			}
-		return tcosts[nUsedJobs - 1][nMachines - 1];
+		}
+		return c[nMachines - 1];
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD calcCachedCosts() Same value as calcTotalCosts(nUsedJobs),
+	 * but the head rows of the positions that did not change since the last
+	 * call are taken from the cache: only the changed suffix is evaluated.
+	 ******************************************************************************/
+
+	public int calcCachedCosts(int nUsedJobs) {
+		ensureHeads();
+		if (validHeads < nUsedJobs) {
+			TaillardKernel.calcHeads(times, nMachines, jobs, validHeads,
+					nUsedJobs, heads);
+			validHeads = nUsedJobs;
+		}
+		return heads[nUsedJobs * nMachines - 1];
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD updateCosts() Sets the solution cost (makespan) using the
+	 * cached heads, see calcCachedCosts()
+	 ******************************************************************************/
+
+	public int updateCosts() {
+		costs = calcCachedCosts(nJobs);
+		return costs;
+	}
+
+	private void ensureHeads() {
+		if (heads == null)
+			heads = new int[nJobs * nMachines];
 	}
 
 	/*******************************************************************************
@@ -189,133 +297,78 @@ public class PFSPSolution {
 	 * extreme.
 	 * 
 	 * This method also updates the solution cost (makespan) if k == nJobs -1
+	 * 
+	 * The version with buffers gives exactly the same sequence and makespan,
+	 * but it uses the cached heads of the solution as eMatrix: only the rows
+	 * from the first changed position on are computed, and afterwards the rows
+	 * before the insertion position plus the inserted job (f row) stay cached.
 	 ******************************************************************************/
 
 	public void improveByShiftingJobToLeft(int k) {
+		int size = (k + 1) * nMachines;
+		shiftJobToLeft(k, 0, new int[k * nMachines], new int[size],
+				new int[size]);
+	}
+
+	public void improveByShiftingJobToLeft(int k, TaillardBuffers buffers) {
+		ensureHeads();
+		int from = Math.min(validHeads, k);
+		int bestPosition = shiftJobToLeft(k, from, heads, buffers.q, buffers.f);
+
+		// Keep the head row of the inserted job (== f row at bestPosition)
+		int row = bestPosition * nMachines;
+		System.arraycopy(buffers.f, row, heads, row, nMachines);
+		validHeads = bestPosition + 1;
+	}
+
+	private int shiftJobToLeft(int k, int firstHead, int[] eMatrix,
+			int[] qMatrix, int[] fMatrix) {
 		int bestPosition = k;
 		int minMakespan = Integer.MAX_VALUE;
 		int newMakespan = Integer.MAX_VALUE;
 
-		int[][] eMatrix = null;
-		int[][] qMatrix = null;
-		int[][] fMatrix = null;
-		int maxSum = 0;
-		int newSum = 0;
-
-		// Calculate eMatrix
-		eMatrix = calcEMatrix(k);
+		// Calculate eMatrix (rows before firstHead are already up to date)
+		TaillardKernel.calcHeads(times, nMachines, jobs, firstHead, k, eMatrix);
 
 		// Calculate qMatrix
-		qMatrix = calcQMatrix(k);
-
-		// Calculate fMatrix
-		fMatrix = calcFMatrix(k, eMatrix);
-
-		// Calculate bestPosition (0...k) and minMakespan (mVector)
-		for (int i = k; i >= 0; i--) {
-			maxSum = 0;
-			for (int j = 0; j < nMachines; j++) {
-				newSum = fMatrix[i][j] + qMatrix[i][j];
-				if (newSum > maxSum)
-					maxSum = newSum;
-			}
-			newMakespan = maxSum;
-			// TIE ISSUE #2 - In case of tie, do swap
-			if (newMakespan <= minMakespan) {
-				minMakespan = newMakespan;
-				bestPosition = i;
+		TaillardKernel.calcTails(times, nMachines, jobs, k, qMatrix);
+
+		if (ParallelInsertion.isWorthIt(k, nMachines)) {
+			// Large instances: fMatrix rows and positions split among threads
+			long best = ParallelInsertion.findBestPosition(times, nMachines,
+					jobs[k], k, eMatrix, qMatrix, fMatrix);
+			minMakespan = (int) (best >>> 32);
+			bestPosition = (int) best;
+		} else {
+			// Calculate fMatrix
+			TaillardKernel.calcInsertionHeads(times, nMachines, jobs[k], k,
+					eMatrix, fMatrix);
+
+			// Calculate bestPosition (0...k) and minMakespan (mVector)
+			for (int i = k; i >= 0; i--) {
+				newMakespan = TaillardKernel.calcMakespan(fMatrix, qMatrix, i,
+						nMachines);
+				// TIE ISSUE #2 - In case of tie, do swap
+				if (newMakespan <= minMakespan) {
+					minMakespan = newMakespan;
+					bestPosition = i;
+				}
 			}
 		}
 
 		// Update solution with bestPosition and minMakespan
 		if (bestPosition < k) // if i == k do nothing
 		{
-			PFSPJob auxJob = jobs[k];
+			int auxJob = jobs[k];
 			for (int i = k; i > bestPosition; i--)
 				jobs[i] = jobs[i - 1];
 
 			jobs[bestPosition] = auxJob;
 		}
+		markChanged(bestPosition);
 		if (k == nJobs - 1)
 			this.setCosts(minMakespan);
-	}
-
-	/*******************************************************************************
-	 * PRIVATE METHOD calcEMatrix()
-	 ******************************************************************************/
-
-	private int[][] calcEMatrix(int k) {
-		int[][] e = new int[k][nMachines];
-
-		for (int i = 0; i < k; i++) {
-			for (int j = 0; j < nMachines; j++) {
-				if (i == 0 && j == 0)
-					e[0][0] = jobs[0].getProcessingTime(0);
-				else if (j == 0)
-					e[i][0] = e[i - 1][0] + jobs[i].getProcessingTime(0);
-				else if (i == 0)
-					e[0][j] = e[0][j - 1] + jobs[0].getProcessingTime(j);
-				else {
-					int max = Math.max(e[i - 1][j], e[i][j - 1]);
-					e[i][j] = max + jobs[i].getProcessingTime(j);
-				}
-			}
-		}
-		return e;
-	}
-
-	/*******************************************************************************
-	 * PRIVATE METHOD calcQMatrix()
-	 ******************************************************************************/
-
-	private int[][] calcQMatrix(int k) {
-		int[][] q = new int[k + 1][nMachines];
-
-		for (int i = k; i >= 0; i--) {
-			for (int j = nMachines - 1; j >= 0; j--) {
-				if (i == k)
-					q[k][j] = 0; // dummy file to make possible fMatrix +
-									// qMatrix
-				else if (i == k - 1 && j == nMachines - 1)
-					q[k - 1][nMachines - 1] = jobs[k - 1]
-							.getProcessingTime(nMachines - 1);
-				else if (j == nMachines - 1)
-					q[i][nMachines - 1] = q[i + 1][nMachines - 1]
-							+ jobs[i].getProcessingTime(nMachines - 1);
-				else if (i == k - 1)
-					q[k - 1][j] = q[k - 1][j + 1]
-							+ jobs[k - 1].getProcessingTime(j);
-				else {
-					int max = Math.max(q[i + 1][j], q[i][j + 1]);
-					q[i][j] = max + jobs[i].getProcessingTime(j);
-				}
-			}
-		}
-		return q;
-	}
-
-	/*******************************************************************************
-	 * PRIVATE METHOD calcFMatrix()
-	 ******************************************************************************/
-
-	private int[][] calcFMatrix(int k, int[][] e) {
-		int[][] f = new int[k + 1][nMachines];
-
-		for (int i = 0; i <= k; i++) {
-			for (int j = 0; j < nMachines; j++) {
-				if (i == 0 && j == 0)
-					f[0][0] = jobs[k].getProcessingTime(0);
-				else if (j == 0)
-					f[i][0] = e[i - 1][0] + jobs[k].getProcessingTime(0);
-				else if (i == 0)
-					f[0][j] = f[0][j - 1] + jobs[k].getProcessingTime(j);
-				else {
-					int max = Math.max(e[i - 1][j], f[i][j - 1]);
-					f[i][j] = max + jobs[k].getProcessingTime(j);
-				}
-			}
-		}
-		return f;
+		return bestPosition;
 	}
 
 	/*******************************************************************************
@@ -336,7 +389,7 @@ public class PFSPSolution {
 		if (printDetails == true) {
 			s = s.concat("List of jobs: \r\n");
 			for (int i = 0; i < jobs.length; i++)
-				s = s.concat("" + jobs[i].getId() + "\r\n");
+				s = s.concat("" + instance.getId(jobs[i]) + "\r\n");
 		}
 		return s;
 	}
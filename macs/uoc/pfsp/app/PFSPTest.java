@@ -26,6 +26,7 @@ package macs.uoc.pfsp.app;
 import java.util.Random;
 
 import macs.uoc.api.Test;
+import macs.util.RandomStreams;
 
 
 
@@ -43,9 +44,11 @@ public class PFSPTest implements Test
 	private float beta1;
 	private float beta2;
 	private int seed;
+	private int target; // known upper bound / target makespan (0 if none)
 
     //private RandomStream rng = null; // Random Number Generator (l'Ecuyer SSJ)
 	private Random rng = null;
+	private RandomStreams streams = null; // streams for agents, chains and threads
 
 	/*******************************************************************************
      *  CLASS CONSTRUCTOR 
@@ -60,6 +63,7 @@ public class PFSPTest implements Test
     	beta1 = b1;
     	beta2 = b2;
     	seed = s;
+    	target = 0;
     }
 	
     /*******************************************************************************
@@ -106,9 +110,31 @@ public class PFSPTest implements Test
         return rng;
     }
 
+    public int getTarget()
+    {
+        return target;
+    }
+
+    public void setTarget(int target)
+    {
+        this.target = target;
+    }
+
     public void setRandom(Random rng){
         this.rng = rng;
     }
+
+    public synchronized RandomStreams getStreams()
+    {
+        if( streams == null )
+            streams = new RandomStreams(seed);
+        return streams;
+    }
+
+    public synchronized void setStreams(RandomStreams streams)
+    {
+        this.streams = streams;
+    }
   
     
     
@@ -122,6 +148,8 @@ public class PFSPTest implements Test
         PFSPTest t = new PFSPTest(instanceName, maxTime, nIter, distribution, beta1, beta2, seed);
 
         t.setRandom(rng);
+        t.setStreams(streams);
+        t.setTarget(target);
         
         return t;
     }
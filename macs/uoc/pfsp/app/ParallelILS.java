@@ -0,0 +1,263 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import macs.heuristics.PatternHeuristic;
+import macs.ontologies.SolverContext;
+import macs.ontologies.entities.Solution;
+import macs.uoc.pfsp.api.PFSPInputs;
+import macs.util.RandomStreams;
+
+/***********************************************************************************
+ * Project SimScheduling - ParallelILS.java
+ *
+ * Multi-chain version of ILSESP.solve() for a single agent: K independent ILS
+ *  chains run on a thread pool, each one with its own random stream, RandNEHT,
+ *  LocalSearch (and so its own Taillard's buffers) and solutions.
+ *
+ *  1. Every chain builds its own starting point (randomized NEH trials plus
+ *     local search), all of them in parallel.
+ *  2. The chains run the ILS (enhancedSwap + globalImprovement + demon
+ *     acceptance) during EXCHANGE_TIME seconds, then the incumbent is
+ *     exchanged: the chain with the worst base solution restarts from a copy
+ *     of the best solution found so far.
+ *  3. 2 is repeated until aTest.getMaxTime() and the best solution is returned.
+ *
+ * The number of chains is given by the system property macs.pfsp.chains
+ *  (1, the default, keeps the single chain ILSESP). Chain i takes stream i of
+ *  a split of aTest.getStreams() keyed by aTest.getRandom(), so a run is
+ *  repeatable for a seed.
+ **********************************************************************************/
+
+public class ParallelILS {
+
+	/*******************************************************************************
+	 * CONSTANT FIELDS
+	 ******************************************************************************/
+
+	public static final String CHAINS_PROPERTY = "macs.pfsp.chains";
+	public static final int CHAINS = Math.max(1, Integer.getInteger(CHAINS_PROPERTY, 1));
+	private static final double EXCHANGE_TIME = 1.0; // seconds between exchanges
+
+	/*******************************************************************************
+	 * PUBLIC METHOD solve()
+	 *******************************************************************************/
+
+	public static Solution solve(Solution solution, PFSPTest aTest,
+			PFSPInputs aInputs, int nChains, SolverContext context) {
+		PFSPInstance instance = PFSPInstance.valueOf(aInputs);
+		int[] effList = instance.createEffList();
+		List<Integer> fromEdges = PatternHeuristic.edgesToList(solution.getEdges());
+		int[] newEfflist = ILSESP.reOrderEfflist(fromEdges, effList, instance);
+
+		long startTime = ElapsedTime.systemTime();
+		List<ILSChain> chains = new ArrayList<ILSChain>(nChains);
+		RandomStreams chainStreams = aTest.getStreams().split(
+				aTest.getRandom().nextLong());
+		for (int i = 0; i < nChains; i++) {
+			PFSPTest chainTest = aTest.clone();
+			chainTest.setRandom(chainStreams.stream(i));
+			chainTest.setStreams(chainStreams.split(i));
+			chains.add(new ILSChain(chainTest, instance, newEfflist, startTime));
+		}
+
+		// The pool lives only for this call: it is shut down in the finally
+		// block, also when a chain fails or the agent is interrupted
+		ExecutorService executor = Executors.newFixedThreadPool(nChains);
+		double elapsed = 0.0;
+		int target = instance.getTargetCosts(aTest); // stop if reached
+		for (ILSChain chain : chains)
+			chain.target = target;
+		boolean reached = false;
+		Throwable failure = null;
+		try {
+			while (elapsed < aTest.getMaxTime() && !reached) {
+				double slice = Math.min(EXCHANGE_TIME, aTest.getMaxTime() - elapsed);
+				for (ILSChain chain : chains)
+					chain.slice = slice;
+
+				// Run the chains (the first round builds the starting points)
+				for (Future<PFSPSolution> future : executor.invokeAll(chains))
+					future.get();
+
+				exchangeIncumbent(chains);
+				reached = getBest(chains).bestSol.getCosts() <= target;
+				elapsed = ElapsedTime.calcElapsed(startTime,
+						ElapsedTime.systemTime());
+			}
+		} catch (InterruptedException e) {
+			failure = e;
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			failure = e.getCause();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// After a failure only the chains that have an incumbent are used
+		if (failure != null) {
+			failure.printStackTrace();
+			System.out.println("ParallelILS: search stopped after " + elapsed + "s");
+			chains = withIncumbent(chains);
+			if (chains.isEmpty())
+				throw new IllegalStateException(
+						"ParallelILS: no chain built a solution", failure);
+		}
+
+		PFSPSolution bestSol = getBest(chains).bestSol;
+		for (ILSChain chain : chains)
+			if (chain.evalCache.isEnabled())
+				System.out.println(chain.evalCache);
+		ILSESP.reportTarget("ParallelILS", bestSol, target, elapsed,
+				aTest.getMaxTime());
+		context.setLocalOpt(bestSol.getCosts());
+		return ILSESP.getResultSolution(bestSol, solution, false);
+	}
+
+	/*******************************************************************************
+	 * PRIVATE METHOD exchangeIncumbent()
+	 * The chain with the worst base solution restarts from the best one
+	 *******************************************************************************/
+
+	private static void exchangeIncumbent(List<ILSChain> chains) {
+		if (chains.size() < 2)
+			return;
+		ILSChain best = getBest(chains);
+		ILSChain worst = chains.get(0);
+		for (ILSChain chain : chains)
+			if (chain.baseSol.getCosts() > worst.baseSol.getCosts())
+				worst = chain;
+		if (worst != best
+				&& worst.baseSol.getCosts() > best.bestSol.getCosts()) {
+			worst.baseSol = best.bestSol.clone();
+			worst.credit = 0;
+		}
+	}
+
+	private static List<ILSChain> withIncumbent(List<ILSChain> chains) {
+		List<ILSChain> result = new ArrayList<ILSChain>(chains.size());
+		for (ILSChain chain : chains)
+			if (chain.bestSol != null)
+				result.add(chain);
+		return result;
+	}
+
+	private static ILSChain getBest(List<ILSChain> chains) {
+		ILSChain best = chains.get(0);
+		for (ILSChain chain : chains)
+			if (chain.bestSol.getCosts() < best.bestSol.getCosts())
+				best = chain;
+		return best;
+	}
+
+	/*******************************************************************************
+	 * CLASS ILSChain
+	 * One ILS chain, as in ILSESP.solve(), run slice seconds per call
+	 *******************************************************************************/
+
+	private static class ILSChain implements Callable<PFSPSolution> {
+		private final PFSPTest aTest; // own random stream
+		private final PFSPInstance instance;
+		private final int[] effList;
+		private final RandNEHT nehtAlg;
+		private final LocalSearch locSearch;
+		private final EvaluationCache evalCache; // known local optima
+		private final long startTime; // start of the whole search
+		double slice; // seconds to run in the next call
+		int target; // stop when bestSol reaches it
+		PFSPSolution baseSol;
+		PFSPSolution bestSol;
+		int credit; // DEMON PARAMETER
+
+		ILSChain(PFSPTest test, PFSPInstance anInstance, int[] list, long start) {
+			aTest = test;
+			instance = anInstance;
+			effList = list;
+			Randomness random = new Randomness(aTest, instance);
+			nehtAlg = new RandNEHT(aTest, instance, random);
+			locSearch = new LocalSearch(aTest, instance, random);
+			evalCache = new EvaluationCache(locSearch);
+			startTime = start;
+			credit = 0;
+		}
+
+		public PFSPSolution call() {
+			if (baseSol == null)
+				start();
+
+			long sliceStart = ElapsedTime.systemTime();
+			double elapsed = 0.0;
+			while (elapsed < slice && bestSol.getCosts() > target) {
+				// Use a copy of the baseSol to explore
+				PFSPSolution currentSol = baseSol.clone();
+
+				// Perturbation and local search
+				locSearch.enhancedSwap(currentSol);
+				evalCache.globalImprovement(currentSol);
+
+				elapsed = ElapsedTime.calcElapsed(sliceStart,
+						ElapsedTime.systemTime());
+
+				// Acceptance Criterion
+				int delta = currentSol.getCosts() - baseSol.getCosts();
+				if (delta < 0) // improvement
+				{
+					credit = -delta;
+					baseSol = currentSol;
+					if (baseSol.getCosts() < bestSol.getCosts()) {
+						bestSol = baseSol;
+						bestSol.setTime(ElapsedTime.calcElapsed(startTime,
+								ElapsedTime.systemTime()));
+					}
+				} else if (delta > 0 && delta <= credit) {
+					credit = 0;
+					baseSol = currentSol;
+				}
+			}
+			return bestSol;
+		}
+
+		/**
+		 * Randomized NEH starting point plus local search
+		 */
+		private void start() {
+			PFSPSolution nehSol = nehtAlg.solve(effList, true);
+			baseSol = nehSol;
+			int nTrials = 0;
+			do {
+				PFSPSolution newSol = nehtAlg.solve(effList, true);
+				if (newSol.getCosts() < baseSol.getCosts()) {
+					baseSol = newSol;
+				}
+				nTrials++;
+			} while (baseSol.getCosts() >= nehSol.getCosts()
+					&& nTrials <= instance.getNumberOfJobs());
+
+			locSearch.globalImprovement(baseSol);
+			bestSol = baseSol.clone();
+			bestSol.setTime(ElapsedTime.calcElapsed(startTime,
+					ElapsedTime.systemTime()));
+		}
+	}
+}
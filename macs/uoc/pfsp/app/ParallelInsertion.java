@@ -0,0 +1,133 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.app;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/***********************************************************************************
+ * Project SimScheduling - ParallelInsertion.java
+ *
+ * Fork/join evaluation of the k + 1 insertion positions of the Taillard's
+ *  accelerations. Once e and q are known, every f row and its makespan
+ *  (max f + q) only depend on the position, so the range 0...k is split among
+ *  the workers of a ForkJoinPool and reduced to the best position.
+ *
+ * Each result is packed in a long as (makespan << 32 | position), so the
+ *  minimum of two results is the lowest makespan and, in case of tie, the
+ *  leftmost position: the same choice as the serial loop (TIE ISSUE #2).
+ *
+ * It is only used when k * nMachines reaches the threshold given by the system
+ *  property macs.pfsp.parallelThreshold (0 disables it).
+ **********************************************************************************/
+
+@SuppressWarnings("serial")
+final class ParallelInsertion extends RecursiveTask<Long>
+{
+	/*******************************************************************************
+	 * CONSTANT FIELDS
+	 ******************************************************************************/
+
+	static final String THRESHOLD_PROPERTY = "macs.pfsp.parallelThreshold";
+	static final int THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, 20000);
+	private static final int GRAIN_CELLS = 8192; // min cells per task
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+
+	/*******************************************************************************
+	 * INSTANCE FIELDS
+	 ******************************************************************************/
+
+	private final int[] times;
+	private final int m;
+	private final int job;
+	private final int[] e;
+	private final int[] q;
+	private final int[] f;
+	private final int from; // first position of this task
+	private final int to; // last position of this task
+	private final int grain; // max positions evaluated without splitting
+
+	/*******************************************************************************
+	 * CLASS CONSTRUCTOR
+	 ******************************************************************************/
+
+	private ParallelInsertion(int[] times, int m, int job, int[] e, int[] q,
+			int[] f, int from, int to, int grain)
+	{
+		this.times = times;
+		this.m = m;
+		this.job = job;
+		this.e = e;
+		this.q = q;
+		this.f = f;
+		this.from = from;
+		this.to = to;
+		this.grain = grain;
+	}
+
+	/*******************************************************************************
+	 * METHOD isWorthIt()
+	 ******************************************************************************/
+
+	static boolean isWorthIt(int k, int m)
+	{
+		return THRESHOLD > 0 && (long) k * m >= THRESHOLD
+				&& POOL.getParallelism() > 1;
+	}
+
+	/*******************************************************************************
+	 * METHOD findBestPosition()
+	 * Fills f rows 0...k and returns (minMakespan << 32 | bestPosition)
+	 ******************************************************************************/
+
+	static long findBestPosition(int[] times, int m, int job, int k, int[] e,
+			int[] q, int[] f)
+	{
+		int grain = Math.max(1, GRAIN_CELLS / m);
+		return POOL.invoke(new ParallelInsertion(times, m, job, e, q, f, 0, k,
+				grain)).longValue();
+	}
+
+	/*******************************************************************************
+	 * PROTECTED METHOD compute()
+	 ******************************************************************************/
+
+	@Override
+	protected Long compute()
+	{
+		if( to - from + 1 <= grain )
+		{
+			TaillardKernel.calcInsertionHeads(times, m, job, from, to, e, f);
+			long best = Long.MAX_VALUE;
+			for( int i = to; i >= from; i-- )
+			{
+				long value = ((long) TaillardKernel.calcMakespan(f, q, i, m) << 32) | i;
+				if( value < best )
+					best = value;
+			}
+			return Long.valueOf(best);
+		}
+		int middle = (from + to) >>> 1;
+		ParallelInsertion left = new ParallelInsertion(times, m, job, e, q, f,
+				from, middle, grain);
+		ParallelInsertion right = new ParallelInsertion(times, m, job, e, q, f,
+				middle + 1, to, grain);
+		left.fork();
+		long rightBest = right.compute().longValue();
+		long leftBest = left.join().longValue();
+		return Long.valueOf(Math.min(leftBest, rightBest));
+	}
+}
@@ -17,7 +17,6 @@ package macs.uoc.pfsp.app;
 
 import macs.uoc.api.Test;
 import macs.uoc.pfsp.api.PFSPInputs;
-import macs.uoc.pfsp.api.PFSPJob;
 
 /***********************************************************************************
  * Project SimScheduling - RandNEHT.java
@@ -33,6 +32,9 @@ import macs.uoc.pfsp.api.PFSPJob;
  *  to sort the jobs in the effList), and (2) the selection of currentSol or auxSol
  *  when they provide the same partial costs. 
  *  
+ * Jobs are handled as indexes of a PFSPInstance (the effList is an array of
+ *  job indexes).
+ *  
  * Date of last revision (YYMMDD): 110318
  * (c) Angel A. Juan, Quim Castella - http://ajuanp.wordpress.com
  **********************************************************************************/
@@ -44,11 +46,13 @@ public class RandNEHT
      * ****************************************************************************/
      
     private Test aTest;     // Test to run (including parameters and instance's name)
-    private PFSPInputs inputs;  // Instance inputs
+    private PFSPInstance inputs;  // Instance inputs
     private int nJobs;      // #Jobs
     private int nMachines;  // #Machines
     private int[] positions; // Array of randomly selected positions
-    private PFSPJob nextJob;
+    private int nextJob;
+    private TaillardBuffers buffers; // Scratch matrices for the Taillard's accel.
+    private Randomness random; // Sampler of the random positions
     
     /******************************************************************************* 
      * CLASS CONSTRUCTOR 
@@ -56,45 +60,50 @@ public class RandNEHT
       
     public RandNEHT(Test test, PFSPInputs inputs2)	
     {     
+    	this(test, inputs2, new Randomness(test, inputs2));
+    }
+
+    public RandNEHT(Test test, PFSPInputs inputs2, Randomness aRandom)
+    {
     	aTest = test;
-    	inputs = inputs2;
+    	random = aRandom;
+    	inputs = PFSPInstance.valueOf(inputs2);
     	nJobs = inputs.getNumberOfJobs();
     	nMachines = inputs.getNumberOfMachines();
     	positions = new int[nJobs];
-        nextJob = null;
+        nextJob = -1;
+        buffers = new TaillardBuffers(inputs);
     }				
  	
     /******************************************************************************* 
      * PUBLIC METHOD solve()  
      ******************************************************************************/
     
-	public PFSPSolution solve(PFSPJob[] effList, boolean useRandomSelection)
+	public PFSPSolution solve(int[] effList, boolean useRandomSelection)
     {	    	
 		// 0. Define a new solution
-		PFSPSolution currentSol = new PFSPSolution(nJobs, nMachines);
+		PFSPSolution currentSol = new PFSPSolution(inputs);
 		
 		// 1. Calculate the array of randomly selected positions of jobs in effList
 		if( !useRandomSelection ) // classical NEH solution
 			for( int i = 0; i < nJobs; i++ )
                 positions[i] = i;
 		else
-        {
-            Randomness random = new Randomness(aTest, inputs);
-			positions = random.calcPositionsArray(aTest.getDistribution()); // Randomized NEH solution
-        }
+			random.calcPositionsArray(nJobs, aTest.getDistribution(), positions); // Randomized NEH solution
 
 		// 2. Insert the first job in the solution (not an empty solution anymore)
 		nextJob = effList[positions[0]];
-		currentSol.getJobs()[0] = nextJob;
+		currentSol.setJob(0, nextJob);
 	
 		// 3. Complete the solution with the remaining jobs
 		for( int i = 1; i < nJobs; i++ ) {
 			// Add nextJob to the end of currentSol (partial solution)
 			nextJob = effList[positions[i]];
-			currentSol.getJobs()[i] = nextJob;
+			currentSol.setJob(i, nextJob);
 			
 			// Try to improve currentSol by shifting nextJob to the left
-			currentSol.improveByShiftingJobToLeft(i);
+			// (the head rows before the last insertion point are cached)
+			currentSol.improveByShiftingJobToLeft(i, buffers);
 		}
     	return currentSol;
     }	
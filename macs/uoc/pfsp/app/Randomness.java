@@ -23,7 +23,8 @@ import macs.uoc.pfsp.api.PFSPInputs;
 /***********************************************************************************
  * Project SimScheduling - Randomness.java
  * 
- * This class manages the random behavior of the program. 
+ * This class manages the random behavior of the program. The same object can be
+ * shared by RandNEHT and LocalSearch (not by several threads).
  * 
  * Date of last revision (YYMMDD): 110407
  * (c) Angel A. Juan, Quim Castella - http://ajuanp.wordpress.com
@@ -37,6 +38,7 @@ public class Randomness
     
     private Test aTest;
     private PFSPInputs inputs;
+    private int[] tree; // Fenwick tree of the positions not taken yet
 
     
     /******************************************************************************* 
@@ -56,27 +58,75 @@ public class Randomness
     
     public int[] calcPositionsArray(String distribution)
     {
-        int nJobs = inputs.getNumberOfJobs();
+        return calcPositionsArray(inputs.getNumberOfJobs(), distribution);
+    }
 
-    	int[] posArray = new int[nJobs];
-    	int[] auxArray = new int[nJobs]; // array of "pointers" to jobs in effList
-    	       
-    	// Reset auxArray
-    	for( int i = 0; i < nJobs; i++ )
-        	auxArray[i] = i; 
+    /*******************************************************************************
+     *  PUBLIC METHOD calcPositionsArray()
+     *  Same as above for the first nJobs positions only (partial sequences)
+     ******************************************************************************/
+
+    public int[] calcPositionsArray(int nJobs, String distribution)
+    {
+    	return calcPositionsArray(nJobs, distribution, new int[nJobs]);
+    }
+
+    /*******************************************************************************
+     *  PUBLIC METHOD calcPositionsArray()
+     *  Same as above, the positions are written in posArray (length >= nJobs).
+     *
+     *  The i-th draw takes the pos-th position that has not been taken yet. The
+     *  remaining positions are counted in a Fenwick tree, so each draw costs
+     *  O(log n) instead of shifting an array of "pointers": the random numbers
+     *  and the resulting array are the same.
+     ******************************************************************************/
+
+    public int[] calcPositionsArray(int nJobs, String distribution, int[] posArray)
+    {
+    	resetTree(nJobs);
 
     	// Assign new random positions
     	for( int i = 0; i < nJobs; i++ )
     	{
     		int pos = getRandomPosition(nJobs - i, distribution);
-    		posArray[i] = auxArray[pos];
-            System.arraycopy(auxArray, pos+1, auxArray, pos, nJobs-i-1-pos);
-//    		for( int j = pos; j < nJobs - i - 1; j++ )
-//    			auxArray[j] = auxArray[j + 1];
+    		posArray[i] = takeRemaining(pos, nJobs);
     	}
     	return posArray;
     }
 
+    /*******************************************************************************
+     *  PRIVATE METHODS resetTree() and takeRemaining()
+     *  tree[i] (1...n) counts the remaining positions in (i - lowbit(i), i]
+     ******************************************************************************/
+
+    private void resetTree(int n)
+    {
+    	if( tree == null || tree.length < n + 1 )
+    		tree = new int[n + 1];
+    	for( int i = 1; i <= n; i++ )
+    		tree[i] = i & -i; // all the positions remain
+    }
+
+    private int takeRemaining(int pos, int n)
+    {
+    	// Find the (pos + 1)-th remaining position, descending the tree
+    	int idx = 0;
+    	int rank = pos + 1;
+    	for( int step = Integer.highestOneBit(n); step > 0; step >>= 1 )
+    	{
+    		int next = idx + step;
+    		if( next <= n && tree[next] < rank )
+    		{
+    			idx = next;
+    			rank -= tree[next];
+    		}
+    	}
+    	// idx is 0-based now; remove it from the tree
+    	for( int i = idx + 1; i <= n; i += i & -i )
+    		tree[i]--;
+    	return idx;
+    }
+
     /*******************************************************************************
      *  PUBLIC METHOD getRandomPosition()
      ******************************************************************************/
@@ -15,10 +15,12 @@
  */
 package macs.uoc.pfsp.app;
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import macs.uoc.pfsp.api.PFSPInputs;
-import macs.uoc.pfsp.api.PFSPJob;
 
 
 /***********************************************************************************
@@ -26,6 +28,18 @@ import macs.uoc.pfsp.api.PFSPJob;
  * 
  * This class encapsulates the SS-GNEH methodology for solving the FSP.
  * 
+ * On stochastic (Baker) instances the local optima found by the ILS within
+ * SCREENING_GAP of the best deterministic makespan are screened with FAST_SIMULATIONS replications into a pool of the ELITE_SIZE
+ * best expected makespans. Only the elite are then simulated further, in
+ * rounds of increasing size up to SLOW_SIMULATIONS, dropping every candidate
+ * whose confidence interval is separated from (above) the best one.
+ * 
+ * With the system property macs.pfsp.stochasticRanking set to true the ILS
+ * acceptance criterion ranks the local optima of a stochastic instance by
+ * Clark's estimate of their expected makespan instead of their deterministic
+ * makespan, and only the estimated improvements are screened (confirmed) by
+ * simulation.
+ * 
  * Date of last revision (YYMMDD): 110407 (c) Angel A. Juan & Quim Castella -
  * http://ajuanp.wordpress.com
  **********************************************************************************/
@@ -40,6 +54,10 @@ public class SSGNEH {
 	private static final int FINAL_STOCH_SIMULATIONS = FINAL_DET_SIMULATIONS;
 	private static final int FAST_SIMULATIONS = 500;
 	private static final int SLOW_SIMULATIONS = 1000000;
+	private static final int ELITE_SIZE = 10; // candidates of the slow stage
+	private static final double SCREENING_GAP = 0.02; // max gap to the OBS to be screened
+	static final String RANKING_PROPERTY = "macs.pfsp.stochasticRanking";
+	static final boolean STOCHASTIC_RANKING = Boolean.getBoolean(RANKING_PROPERTY);
 	
 	
 	/** General Values */
@@ -50,23 +68,27 @@ public class SSGNEH {
 	 ******************************************************************************/
 	private PFSPTest aTest; // Test to run (including parameters and instance's
 						// name)
-	private PFSPInputs inputs; // Instance inputs
+	private PFSPInstance inputs; // Instance inputs
 	private Outputs output; // Solution output
 
 	private int nJobs; // #Jobs
 	private int nMachines; // #Machines
-	private PFSPJob[] effList; // Jobs sorted by processing time
+	private int[] effList; // Jobs (indexes) sorted by processing time
 	private PFSPSolution nehSol; // classical NEH solution
 
 	private RandNEHT nehtAlg; // Randomized NEH with Taillard's accelerations
 	private LocalSearch locSearch; // Local Search procedures
+	private MonteCarloEvaluator simulator; // Expected makespan (Baker instances)
+	private ClarkEvaluator surrogate; // Analytic estimate of the expected makespan
+	private List<PFSPSolution> elite; // best screened solutions (fast stage)
+	private Set<Long> screened; // hashes of the solutions already screened
 
 	long startTime;
 	double elapsedTime;
 
 	// DEMON PARAMETERS
-	int delta;
-	int credit;
+	double delta; // makespans, or Clark's estimates when ranking stochastically
+	double credit;
 
 	/*******************************************************************************
 	 * CLASS CONSTRUCTOR
@@ -74,16 +96,22 @@ public class SSGNEH {
 	
 	public SSGNEH(PFSPTest test, PFSPInputs aInputs) { 
 		aTest = test;
-		inputs = aInputs;
-		effList = createEffList();
+		inputs = PFSPInstance.valueOf(aInputs);
+		effList = inputs.createEffList();
 		nJobs = inputs.getNumberOfJobs();
 		nMachines = inputs.getNumberOfMachines();
 
 		
 		
-		nehtAlg = new RandNEHT(aTest, inputs); // Rand NEH with Taillard's
+		Randomness random = new Randomness(aTest, inputs); // shared by both
+		nehtAlg = new RandNEHT(aTest, inputs, random); // Rand NEH with Taillard's
 												// accel.
-		locSearch = new LocalSearch(aTest, inputs); // Local Search procedures
+		locSearch = new LocalSearch(aTest, inputs, random); // Local Search procedures
+		simulator = new MonteCarloEvaluator(inputs,
+				aTest.getStreams().split("simulation"), FAST_SIMULATIONS);
+		surrogate = new ClarkEvaluator(inputs);
+		elite = new ArrayList<PFSPSolution>();
+		screened = new HashSet<Long>();
 
 		startTime = ElapsedTime.systemTime();
 		nehSol = nehtAlg.solve(effList, false); // Computation of the NEH
@@ -117,6 +145,7 @@ public class SSGNEH {
 		maxTime = TIME_FACTOR * maxTime;
 		
 		maxTime = TIME_FACTOR;
+		int target = inputs.getTargetCosts(aTest); // stop if reached
 		// 1. CONSTRUCT A RANDOMIZED STARTING POINT
 		int nTrials = 0;
 		do {
@@ -130,6 +159,9 @@ public class SSGNEH {
 
 		// 2. LOCAL SEARCH PROCESS (randomJobShifting while improving)
 		locSearch.globalImprovement(baseSol);
+		screen(baseSol);
+		boolean ranked = STOCHASTIC_RANKING && simulator.isStochastic();
+		double baseExp = ranked ? surrogate.calcExpCosts(baseSol) : 0.0;
 
 		
 
@@ -140,7 +172,7 @@ public class SSGNEH {
 
 		PFSPSolution bestStochSol = bestSol;
 
-		while (elapsed < maxTime) {
+		while (elapsed < maxTime && bestSol.getCosts() > target) {
 			// 3.0 Use a copy of the baseSol to explore
 			PFSPSolution currentSol = baseSol.clone();
 
@@ -155,39 +187,144 @@ public class SSGNEH {
 					ElapsedTime.systemTime());
 
 			// 3.4 Acceptance Criterion
-			delta = currentSol.getCosts() - baseSol.getCosts();
+			double currentExp = 0.0;
+			if (ranked) {
+				currentExp = surrogate.calcExpCosts(currentSol);
+				delta = currentExp - baseExp;
+			} else
+				delta = currentSol.getCosts() - baseSol.getCosts();
 
 			if (delta < 0) // improvement
 			{
 				// Update data
 				credit = -delta;
 				baseSol = currentSol;
-
-				if (baseSol.getCosts() < bestSol.getCosts()) {
-					bestSol = baseSol;
-				
-					bestSol.setTime(elapsed);
-				}
+				baseExp = currentExp;
 			} else if (delta > 0 && delta <= credit) {
 				credit = 0;
 				baseSol = currentSol;
+				baseExp = currentExp;
+			}
+			// the OBS, whichever ranking the acceptance uses
+			if (currentSol.getCosts() < bestSol.getCosts()) {
+				bestSol = currentSol;
+			
+				bestSol.setTime(elapsed);
 			}
+
+			// 3.5 Screening of the promising local optima
+			if (ranked ? delta < 0
+					: currentSol.getCosts() <= (1 + SCREENING_GAP) * bestSol.getCosts())
+				screen(currentSol);
 		}
 
-	
-		// 4. Set output
-		output = new Outputs(nehSol, bestSol);
+		ILSESP.reportTarget("SSGNEH", bestSol, target, elapsed, maxTime);
+
+		// 4. SLOW SIMULATION OF THE ELITE (stochastic instances only)
+		if (simulator.isStochastic()) {
+			SimulationStats detStats = simulator.evaluate(bestSol,
+					FINAL_DET_SIMULATIONS);
+			simulator.evaluate(nehSol, FINAL_DET_SIMULATIONS);
+			boolean[] survivors = new boolean[elite.size()];
+			SimulationStats[] eliteStats = runSlowStage(survivors);
+			int best = -1;
+			double[] detSols = new double[elite.size()];
+			double[] stochSols = new double[elite.size()];
+			for (int i = 0; i < elite.size(); i++) {
+				elite.get(i).setExpCosts(eliteStats[i].getMean());
+				detSols[i] = elite.get(i).getCosts();
+				stochSols[i] = eliteStats[i].getMean();
+				// only the candidates that passed the screening, the means
+				// of the dropped ones come from a few replications
+				if (survivors[i] && (best < 0
+						|| eliteStats[i].getMean() < eliteStats[best].getMean()))
+					best = i;
+			}
+			bestStochSol = elite.get(best);
+			System.out.println("SSGNEH: OBS " + detStats + "\nSSGNEH: best stoch-sol "
+					+ eliteStats[best]);
+
+			// 5. Set output
+			output = new Outputs(nehSol, bestSol, bestStochSol, detSols, stochSols);
+			output.setStats(detStats, eliteStats[best]);
+		} else {
+			// 5. Set output
+			output = new Outputs(nehSol, bestSol, bestStochSol);
+		}
 	}
 
 	/*******************************************************************************
-	 * PRIVATE METHOD createEffList()
+	 * PRIVATE METHOD screen()
+	 * Fast simulation of aSol, which enters the elite pool if its expected
+	 * makespan is one of the ELITE_SIZE best so far. When the pool is full the
+	 * simulation is only run if Clark's estimate of aSol is better than the
+	 * estimate of the worst elite solution.
 	 ******************************************************************************/
 
-	private PFSPJob[] createEffList() {
-		PFSPJob[] array = inputs.getJobs();
-		// Sort using the compareTo() method of the Job class (TIE ISSUE #1)
-		Arrays.sort(array);
-		return array;
+	private void screen(PFSPSolution aSol) {
+		if (!simulator.isStochastic() || !screened.add(aSol.getHash()))
+			return;
+		int worst = -1;
+		for (int i = 0; i < elite.size(); i++)
+			if (worst < 0 || elite.get(i).getExpCosts() > elite.get(worst).getExpCosts())
+				worst = i;
+		if (elite.size() == ELITE_SIZE && surrogate.calcExpCosts(aSol)
+				>= surrogate.calcExpCosts(elite.get(worst)))
+			return;
+		simulator.evaluate(aSol, FAST_SIMULATIONS);
+		if (elite.size() < ELITE_SIZE)
+			elite.add(aSol);
+		else if (aSol.getExpCosts() < elite.get(worst).getExpCosts())
+			elite.set(worst, aSol);
+	}
+
+	/*******************************************************************************
+	 * PRIVATE METHOD runSlowStage()
+	 * Simulates the elite in rounds of FINAL_STOCH_SIMULATIONS, doubled every
+	 * round, up to SLOW_SIMULATIONS replications. After every round the
+	 * candidates whose 95% CI lies above the CI of the best mean are dropped,
+	 * and the stage stops when only one is left. Returns the statistics of
+	 * every elite solution (same order as elite) and sets alive[i] to true
+	 * for the candidates that were never dropped. The replications start
+	 * after the FAST_SIMULATIONS used by screen() to select the elite, so
+	 * the selection and the estimates use independent samples.
+	 ******************************************************************************/
+
+	private SimulationStats[] runSlowStage(boolean[] alive) {
+		int nElite = elite.size();
+		SimulationStats[] stats = new SimulationStats[nElite];
+		for (int i = 0; i < nElite; i++) {
+			stats[i] = new SimulationStats();
+			alive[i] = true;
+		}
+		int nAlive = nElite;
+		long first = FAST_SIMULATIONS; // replications 0... selected the elite
+		long done = 0;
+		int round = FINAL_STOCH_SIMULATIONS;
+		do {
+			int n = (int) Math.min(round, SLOW_SIMULATIONS - done);
+			List<int[]> perms = new ArrayList<int[]>(nAlive);
+			for (int i = 0; i < nElite; i++)
+				if (alive[i])
+					perms.add(elite.get(i).getJobs());
+			SimulationStats[] partial = simulator.evaluate(perms, first + done, n);
+			int best = -1;
+			for (int i = 0, p = 0; i < nElite; i++)
+				if (alive[i]) {
+					stats[i].merge(partial[p++]);
+					if (best < 0 || stats[i].getMean() < stats[best].getMean())
+						best = i;
+				}
+			for (int i = 0; i < nElite; i++)
+				if (alive[i] && i != best
+						&& stats[i].getLowerBound() > stats[best].getUpperBound()) {
+					alive[i] = false;
+					nAlive--;
+				}
+			done += n;
+			round *= 2;
+		} while (done < SLOW_SIMULATIONS && nAlive > 1);
+		return stats;
 	}
 
 	/*******************************************************************************
@@ -195,10 +332,9 @@ public class SSGNEH {
 	 ******************************************************************************/
 
 	private double sumJobProcTimes() {
-		PFSPJob[] jobs = inputs.getJobs();
 		double sum = 0.0;
 		for (int i = 0; i < nJobs; i++) {
-			sum += jobs[i].getTotalProcessingTime();
+			sum += inputs.getTotalProcessingTime(i);
 		}
 		return sum / (10 * nJobs * nMachines);
 	}
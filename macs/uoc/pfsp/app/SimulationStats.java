@@ -0,0 +1,135 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.app;
+
+/***********************************************************************************
+ * Project SimScheduling - SimulationStats.java
+ *
+ * Sample statistics of the makespan of one solution over a number of simulation
+ *  replications: mean, variance and the 95% confidence interval of the mean.
+ **********************************************************************************/
+
+public class SimulationStats
+{
+	/*******************************************************************************
+	 * CONSTANT FIELDS
+	 ******************************************************************************/
+
+	public static final double Z_95 = 1.959964; // normal quantile for a 95% CI
+
+	/*******************************************************************************
+	 * INSTANCE FIELDS
+	 ******************************************************************************/
+
+	private long n; // #replications
+	private double sum; // sum of the makespans
+	private double sumSq; // sum of the squared deviations from the mean (Welford)
+	private double mean;
+
+	/*******************************************************************************
+	 * CLASS CONSTRUCTOR
+	 ******************************************************************************/
+
+	public SimulationStats()
+	{
+		n = 0;
+		sum = 0.0;
+		sumSq = 0.0;
+		mean = 0.0;
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD add()
+	 ******************************************************************************/
+
+	public void add(double makespan)
+	{
+		n++;
+		sum += makespan;
+		double delta = makespan - mean;
+		mean += delta / n;
+		sumSq += delta * (makespan - mean);
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD merge()
+	 * Adds the replications of other (parallel variance formula)
+	 ******************************************************************************/
+
+	public void merge(SimulationStats other)
+	{
+		if( other.n == 0 )
+			return;
+		long total = n + other.n;
+		double delta = other.mean - mean;
+		sumSq += other.sumSq + delta * delta * n * other.n / total;
+		sum += other.sum;
+		n = total;
+		mean = sum / n;
+	}
+
+	/*******************************************************************************
+	 * GET METHODS
+	 ******************************************************************************/
+
+	public long getN()
+	{
+		return n;
+	}
+
+	public double getMean()
+	{
+		return mean;
+	}
+
+	public double getVariance()
+	{
+		return n > 1 ? sumSq / (n - 1) : 0.0;
+	}
+
+	public double getStdDev()
+	{
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Returns the half width of the 95% confidence interval of the mean
+	 */
+	public double getHalfWidth()
+	{
+		return n > 0 ? Z_95 * getStdDev() / Math.sqrt(n) : Double.POSITIVE_INFINITY;
+	}
+
+	public double getLowerBound()
+	{
+		return mean - getHalfWidth();
+	}
+
+	public double getUpperBound()
+	{
+		return mean + getHalfWidth();
+	}
+
+	/*******************************************************************************
+	 * PUBLIC METHOD toString()
+	 ******************************************************************************/
+
+	public String toString()
+	{
+		return "n = " + n + "; mean = " + mean + "; var = " + getVariance()
+				+ "; CI95 = [" + getLowerBound() + ", " + getUpperBound() + "]";
+	}
+}
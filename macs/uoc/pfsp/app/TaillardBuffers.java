@@ -0,0 +1,61 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.app;
+
+/***********************************************************************************
+ * Project SimScheduling - TaillardBuffers.java
+ *
+ * Scratch matrices for the Taillard's accelerations (q and f) and for the
+ *  makespan calculation. They are sized once for the largest partial sequence
+ *  of an instance (nJobs rows) and reused by every call of
+ *  PFSPSolution.improveByShiftingJobToLeft(k, buffers), so a solver does not
+ *  allocate anything while it inserts jobs. The heads (e) are kept by each
+ *  PFSPSolution, since they stay valid between calls.
+ *
+ * A TaillardBuffers object is not thread safe: each solver (RandNEHT,
+ *  LocalSearch...) keeps its own.
+ **********************************************************************************/
+
+public class TaillardBuffers
+{
+	/*******************************************************************************
+	 * INSTANCE FIELDS
+	 ******************************************************************************/
+
+	final int nJobs; // max #rows
+	final int nMachines; // #columns
+	final int[] q; // tails, q[i * nMachines + j]
+	final int[] f; // heads of the inserted job, f[i * nMachines + j]
+	final int[] c; // completion times of the last job (makespan)
+
+	/*******************************************************************************
+	 * CLASS CONSTRUCTOR
+	 ******************************************************************************/
+
+	public TaillardBuffers(int nJobsInProblem, int nMachinesInProblem)
+	{
+		nJobs = nJobsInProblem;
+		nMachines = nMachinesInProblem;
+		q = new int[nJobs * nMachines];
+		f = new int[nJobs * nMachines];
+		c = new int[nMachines];
+	}
+
+	public TaillardBuffers(PFSPInstance instance)
+	{
+		this(instance.getNumberOfJobs(), instance.getNumberOfMachines());
+	}
+}
@@ -0,0 +1,350 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.app;
+
+import java.util.Arrays;
+
+/***********************************************************************************
+ * Project SimScheduling - TaillardKernel.java
+ *
+ * Inner loops of the Taillard's accelerations over the flat processing times of
+ *  a PFSPInstance (times[job * m + machine]); matrices are stored row by row,
+ *  x[i][j] at x[i * m + j].
+ *
+ * Two versions of every loop are kept:
+ *  - scalar: the original formulation, one if/else chain per cell.
+ *  - fast: first row and first column peeled out of the loops, so the inner
+ *    loops are branch free and unit stride. The f + q max-reduction is then a
+ *    plain int max-reduction that the JIT compiles to SIMD instructions.
+ *
+ * The version is selected with the system property macs.pfsp.kernel:
+ *  "fast" (default), "scalar", or "check" (runs both, reports any difference
+ *  on System.err and goes on with the scalar result).
+ **********************************************************************************/
+
+final class TaillardKernel
+{
+	/*******************************************************************************
+	 * CONSTANT FIELDS
+	 ******************************************************************************/
+
+	static final String KERNEL_PROPERTY = "macs.pfsp.kernel";
+	static final int FAST = 0;
+	static final int SCALAR = 1;
+	static final int CHECK = 2;
+	static final int MODE = selectMode(System.getProperty(KERNEL_PROPERTY, "fast"));
+
+	private TaillardKernel() {}
+
+	private static int selectMode(String name)
+	{
+		if( name.equalsIgnoreCase("scalar") )
+			return SCALAR;
+		if( name.equalsIgnoreCase("check") )
+		{
+			System.out.println("TaillardKernel: cross-checking fast kernels against scalar ones");
+			return CHECK;
+		}
+		if( !name.equalsIgnoreCase("fast") )
+			System.err.println("TaillardKernel: unknown " + KERNEL_PROPERTY + " '" + name + "', using fast");
+		return FAST;
+	}
+
+	/*******************************************************************************
+	 * METHOD calcHeads()
+	 * e rows from...k-1 for jobs[0...k-1]
+	 ******************************************************************************/
+
+	static void calcHeads(int[] times, int m, int[] jobs, int from, int k, int[] e)
+	{
+		if( MODE == SCALAR )
+			scalarHeads(times, m, jobs, from, k, e);
+		else if( MODE == FAST )
+			fastHeads(times, m, jobs, from, k, e);
+		else
+		{
+			int[] check = e.clone();
+			fastHeads(times, m, jobs, from, k, e);
+			scalarHeads(times, m, jobs, from, k, check);
+			compare("heads", check, e, from * m, k * m);
+		}
+	}
+
+	/*******************************************************************************
+	 * METHOD calcTails()
+	 * q rows 0...k for jobs[0...k-1], row k being a dummy row of zeros
+	 ******************************************************************************/
+
+	static void calcTails(int[] times, int m, int[] jobs, int k, int[] q)
+	{
+		if( MODE == SCALAR )
+			scalarTails(times, m, jobs, k, q);
+		else if( MODE == FAST )
+			fastTails(times, m, jobs, k, q);
+		else
+		{
+			int[] check = q.clone();
+			fastTails(times, m, jobs, k, q);
+			scalarTails(times, m, jobs, k, check);
+			compare("tails", check, q, 0, (k + 1) * m);
+		}
+	}
+
+	/*******************************************************************************
+	 * METHOD calcInsertionHeads()
+	 * f rows 0...k: heads of job when it is inserted at each position 0...k
+	 ******************************************************************************/
+
+	static void calcInsertionHeads(int[] times, int m, int job, int k, int[] e, int[] f)
+	{
+		calcInsertionHeads(times, m, job, 0, k, e, f);
+	}
+
+	/*******************************************************************************
+	 * METHOD calcInsertionHeads()
+	 * f rows from...to only (rows are independent given e)
+	 ******************************************************************************/
+
+	static void calcInsertionHeads(int[] times, int m, int job, int from, int to, int[] e, int[] f)
+	{
+		if( MODE == SCALAR )
+			scalarInsertionHeads(times, m, job, from, to, e, f);
+		else if( MODE == FAST )
+			fastInsertionHeads(times, m, job, from, to, e, f);
+		else
+		{
+			int[] check = new int[f.length];
+			fastInsertionHeads(times, m, job, from, to, e, f);
+			scalarInsertionHeads(times, m, job, from, to, e, check);
+			compare("insertion heads", check, f, from * m, (to + 1) * m);
+		}
+	}
+
+	/*******************************************************************************
+	 * METHOD calcMakespan()
+	 * max over j of f[i][j] + q[i][j]: makespan when the job is inserted at i
+	 ******************************************************************************/
+
+	static int calcMakespan(int[] f, int[] q, int i, int m)
+	{
+		if( MODE == SCALAR )
+			return scalarMakespan(f, q, i, m);
+		if( MODE == FAST )
+			return fastMakespan(f, q, i, m);
+		int fast = fastMakespan(f, q, i, m);
+		int scalar = scalarMakespan(f, q, i, m);
+		if( fast != scalar )
+			System.err.println("TaillardKernel: makespan mismatch at position " + i
+					+ " (fast " + fast + ", scalar " + scalar + ")");
+		return scalar;
+	}
+
+	private static void compare(String what, int[] expected, int[] actual, int from, int to)
+	{
+		for( int i = from; i < to; i++ )
+			if( expected[i] != actual[i] )
+			{
+				System.err.println("TaillardKernel: " + what + " mismatch at cell " + i
+						+ " (fast " + actual[i] + ", scalar " + expected[i] + ")");
+				System.arraycopy(expected, from, actual, from, to - from);
+				return;
+			}
+	}
+
+	/*******************************************************************************
+	 * FAST KERNELS
+	 ******************************************************************************/
+
+	static void fastHeads(int[] times, int m, int[] jobs, int from, int k, int[] e)
+	{
+		int i = from;
+		if( i == 0 && k > 0 )
+		{
+			int base = jobs[0] * m;
+			int left = times[base];
+			e[0] = left;
+			for( int j = 1; j < m; j++ )
+			{
+				left += times[base + j];
+				e[j] = left;
+			}
+			i = 1;
+		}
+		for( ; i < k; i++ )
+		{
+			int row = i * m;
+			int up = row - m;
+			int base = jobs[i] * m;
+			int left = e[up] + times[base];
+			e[row] = left;
+			for( int j = 1; j < m; j++ )
+			{
+				left = Math.max(e[up + j], left) + times[base + j];
+				e[row + j] = left;
+			}
+		}
+	}
+
+	static void fastTails(int[] times, int m, int[] jobs, int k, int[] q)
+	{
+		int last = m - 1;
+		Arrays.fill(q, k * m, (k + 1) * m, 0);
+		// the dummy row k makes q[k-1] the same recurrence as any other row
+		for( int i = k - 1; i >= 0; i-- )
+		{
+			int row = i * m;
+			int down = row + m;
+			int base = jobs[i] * m;
+			int right = q[down + last] + times[base + last];
+			q[row + last] = right;
+			for( int j = last - 1; j >= 0; j-- )
+			{
+				right = Math.max(q[down + j], right) + times[base + j];
+				q[row + j] = right;
+			}
+		}
+	}
+
+	static void fastInsertionHeads(int[] times, int m, int job, int from, int to, int[] e, int[] f)
+	{
+		int base = job * m;
+		int i = from;
+		if( i == 0 && to >= 0 )
+		{
+			int left = times[base];
+			f[0] = left;
+			for( int j = 1; j < m; j++ )
+			{
+				left += times[base + j];
+				f[j] = left;
+			}
+			i = 1;
+		}
+		for( ; i <= to; i++ )
+		{
+			int row = i * m;
+			int up = row - m;
+			int left = e[up] + times[base];
+			f[row] = left;
+			for( int j = 1; j < m; j++ )
+			{
+				left = Math.max(e[up + j], left) + times[base + j];
+				f[row + j] = left;
+			}
+		}
+	}
+
+	static int fastMakespan(int[] f, int[] q, int i, int m)
+	{
+		int row = i * m;
+		int maxSum = 0;
+		for( int j = 0; j < m; j++ )
+			maxSum = Math.max(maxSum, f[row + j] + q[row + j]);
+		return maxSum;
+	}
+
+	/*******************************************************************************
+	 * SCALAR KERNELS
+	 ******************************************************************************/
+
+	static void scalarHeads(int[] times, int m, int[] jobs, int from, int k, int[] e)
+	{
+		for( int i = from; i < k; i++ )
+		{
+			int row = i * m;
+			int base = jobs[i] * m;
+			for( int j = 0; j < m; j++ )
+			{
+				if( i == 0 && j == 0 )
+					e[0] = times[base];
+				else if( j == 0 )
+					e[row] = e[row - m] + times[base];
+				else if( i == 0 )
+					e[j] = e[j - 1] + times[base + j];
+				else
+				{
+					int max = Math.max(e[row - m + j], e[row + j - 1]);
+					e[row + j] = max + times[base + j];
+				}
+			}
+		}
+	}
+
+	static void scalarTails(int[] times, int m, int[] jobs, int k, int[] q)
+	{
+		int last = m - 1;
+
+		// row k is a dummy row of zeros to make possible fMatrix + qMatrix
+		Arrays.fill(q, k * m, (k + 1) * m, 0);
+		for( int i = k - 1; i >= 0; i-- )
+		{
+			int row = i * m;
+			int base = jobs[i] * m;
+			for( int j = last; j >= 0; j-- )
+			{
+				if( i == k - 1 && j == last )
+					q[row + last] = times[base + last];
+				else if( j == last )
+					q[row + last] = q[row + m + last] + times[base + last];
+				else if( i == k - 1 )
+					q[row + j] = q[row + j + 1] + times[base + j];
+				else
+				{
+					int max = Math.max(q[row + m + j], q[row + j + 1]);
+					q[row + j] = max + times[base + j];
+				}
+			}
+		}
+	}
+
+	static void scalarInsertionHeads(int[] times, int m, int job, int from, int to, int[] e, int[] f)
+	{
+		int base = job * m;
+
+		for( int i = from; i <= to; i++ )
+		{
+			int row = i * m;
+			for( int j = 0; j < m; j++ )
+			{
+				if( i == 0 && j == 0 )
+					f[0] = times[base];
+				else if( j == 0 )
+					f[row] = e[row - m] + times[base];
+				else if( i == 0 )
+					f[j] = f[j - 1] + times[base + j];
+				else
+				{
+					int max = Math.max(e[row - m + j], f[row + j - 1]);
+					f[row + j] = max + times[base + j];
+				}
+			}
+		}
+	}
+
+	static int scalarMakespan(int[] f, int[] q, int i, int m)
+	{
+		int row = i * m;
+		int maxSum = 0;
+		int newSum = 0;
+		for( int j = 0; j < m; j++ )
+		{
+			newSum = f[row + j] + q[row + j];
+			if( newSum > maxSum )
+				maxSum = newSum;
+		}
+		return maxSum;
+	}
+}
@@ -66,6 +66,7 @@ public class TestsPlanner
             // The two first lines (lines 0 and 1) of this file are like this:
             // # instance | maxTime(min) | nIter | distrib | beta1 | beta2 | seed
             // tai003_20_5		10 		    1000  triangular  0.20 	  0.25   32321
+            // An optional last column gives a known upper bound (target makespan)
             while ( in.hasNextLine() )
             {	
             	String s = in.next();
@@ -85,6 +86,8 @@ public class TestsPlanner
                    
             		PFSPTest aTest = new PFSPTest(instance, maxTime, nIter, distribution,
             				beta1, beta2, seed);
+            		if( in.hasNextInt() )
+            			aTest.setTarget(in.nextInt());
             		list.add(aTest);
             	}
             }
@@ -27,6 +27,7 @@ public class BakerInputs implements PFSPInputs
 	private int nJobs;      // #Jobs
 	private int nMachines;  // #Machines
 	private PFSPJob[] jobs;     // Array of jobs
+	private int lowerBound; // Taillard's lower bound (0 if not computed)
 
 	/*******************************************************************************
      *  CLASS CONSTRUCTOR 
@@ -60,6 +61,20 @@ public class BakerInputs implements PFSPInputs
     	return jobs;
     }
 
+    public int getLowerBound()
+    {
+        return lowerBound;
+    }
+
+    /*******************************************************************************
+     * SET METHODS
+     ******************************************************************************/
+
+    public void setLowerBound(int bound)
+    {
+        lowerBound = bound;
+    }
+
     /*******************************************************************************
      * PUBLIC METHODS clone()
      ******************************************************************************/
@@ -75,6 +90,7 @@ public class BakerInputs implements PFSPInputs
             }
             in.jobs[i].setTotalProcessingTime(this.jobs[i].getTotalProcessingTime());
         }
+        in.lowerBound = lowerBound;
 
         return in;
     }
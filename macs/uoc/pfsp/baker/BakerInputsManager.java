@@ -22,6 +22,7 @@ import java.util.Scanner;
 
 import macs.uoc.pfsp.api.InputManager;
 import macs.uoc.pfsp.api.PFSPInputs;
+import macs.uoc.pfsp.base.TaillardLowerBound;
 
 public class BakerInputsManager implements InputManager {
 
@@ -91,6 +92,7 @@ public class BakerInputsManager implements InputManager {
 					iJob.setTotalProcessingTime(totalTime);
 					//System.out.println();
 				}
+			bi.setLowerBound(TaillardLowerBound.calcLowerBound(bi));
 	
 			in.close();
 		} catch (IOException exception) {
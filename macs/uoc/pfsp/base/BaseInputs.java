@@ -36,6 +36,7 @@ public class BaseInputs implements PFSPInputs
 	private int nJobs;      // #Jobs
 	private int nMachines;  // #Machines
 	private PFSPJob[] jobs;     // Array of jobs
+	private int lowerBound; // Taillard's lower bound (0 if not computed)
 
 	/*******************************************************************************
      *  CLASS CONSTRUCTOR 
@@ -69,6 +70,20 @@ public class BaseInputs implements PFSPInputs
     	return jobs;
     }
 
+    public int getLowerBound()
+    {
+        return lowerBound;
+    }
+
+    /*******************************************************************************
+     * SET METHODS
+     ******************************************************************************/
+
+    public void setLowerBound(int bound)
+    {
+        lowerBound = bound;
+    }
+
     /*******************************************************************************
      * PUBLIC METHODS clone()
      ******************************************************************************/
@@ -84,6 +99,7 @@ public class BaseInputs implements PFSPInputs
             }
             in.jobs[i].setTotalProcessingTime(this.jobs[i].getTotalProcessingTime());
         }
+        in.lowerBound = lowerBound;
 
         return in;
     }
@@ -89,6 +89,7 @@ public class BaseInputsManager implements InputManager
             	}
             	iJob.setTotalProcessingTime(totalTime);
             }
+            inputs.setLowerBound(TaillardLowerBound.calcLowerBound(inputs));
             in.close();
         }
         catch (IOException exception)
@@ -0,0 +1,79 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin, Angel Alejandro Juan Perez. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.uoc.pfsp.base;
+
+import macs.uoc.pfsp.api.PFSPInputs;
+import macs.uoc.pfsp.api.PFSPJob;
+
+/***********************************************************************************
+ * Project SimScheduling - TaillardLowerBound.java
+ * 
+ * Taillard's lower bound of the makespan of an FSP instance:
+ *  LB = max( max over machines j of (min head_j + sum of p_ij + min tail_j),
+ *            max over jobs i of sum of p_ij )
+ *  where head_j (tail_j) of a job is its processing time on the machines
+ *  before (after) j. It is computed once, when the instance is loaded.
+ **********************************************************************************/
+
+public class TaillardLowerBound
+{
+    /*******************************************************************************
+     *  METHOD calcLowerBound() 
+     ******************************************************************************/
+
+    public static int calcLowerBound(PFSPInputs inputs)
+    {
+        int nJobs = inputs.getNumberOfJobs();
+        int nMachines = inputs.getNumberOfMachines();
+        PFSPJob[] jobs = inputs.getJobs();
+        if( nJobs == 0 || nMachines == 0 )
+            return 0;
+
+        int[] minHead = new int[nMachines];
+        int[] minTail = new int[nMachines];
+        int[] load = new int[nMachines];
+        for( int j = 0; j < nMachines; j++ )
+        {
+            minHead[j] = Integer.MAX_VALUE;
+            minTail[j] = Integer.MAX_VALUE;
+        }
+
+        int jobBound = 0;
+        for( int i = 0; i < nJobs; i++ )
+        {
+            int total = 0;
+            for( int j = 0; j < nMachines; j++ )
+                total += jobs[i].getProcessingTime(j);
+            jobBound = Math.max(jobBound, total);
+
+            int head = 0;
+            for( int j = 0; j < nMachines; j++ )
+            {
+                int time = jobs[i].getProcessingTime(j);
+                minHead[j] = Math.min(minHead[j], head);
+                minTail[j] = Math.min(minTail[j], total - head - time);
+                load[j] += time;
+                head += time;
+            }
+        }
+
+        int machineBound = 0;
+        for( int j = 0; j < nMachines; j++ )
+            machineBound = Math.max(machineBound, minHead[j] + load[j] + minTail[j]);
+
+        return Math.max(machineBound, jobBound);
+    }
+}
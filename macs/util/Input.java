@@ -38,6 +38,7 @@ import macs.uoc.cvrp.Node;
 import macs.uoc.cvrp.VRPEdge;
 import macs.uoc.pfsp.api.PFSPJob;
 import macs.uoc.pfsp.base.BaseInputs;
+import macs.uoc.pfsp.base.TaillardLowerBound;
 
 /**
  * @author simon martin
@@ -164,32 +165,111 @@ int problem;
         int k = 0;
         for( int i = 1; i < nNodes - 1; i++ ) // node 0 is the depot
         {   for( int j = i + 1; j < nNodes; j++ )
-            {   Node iNode = nodes[i];
-            	Node jNode = nodes[j];
-                // Create ijEdge and jiEdge, and assign costs and savings
-                VRPEdge ijEdge = new VRPEdge(iNode, jNode);
-                ijEdge.setCosts(ijEdge.calcCosts(iNode, jNode));
-                ijEdge.setSavings(ijEdge.calcSavings(iNode, jNode, depot));
-                VRPEdge jiEdge = new VRPEdge(jNode, iNode);
-                jiEdge.setCosts(jiEdge.calcCosts(jNode, iNode));
-                jiEdge.setSavings(jiEdge.calcSavings(jNode, iNode, depot));
-                // Set inverse edges
-                ijEdge.setInverse(jiEdge);
-                jiEdge.setInverse(ijEdge);
-                // Add a single new edge to the savingsList
-                savingsArray[k] = ijEdge;
+            {   // Add a single new edge to the savingsList
+                savingsArray[k] = createSavingsEdge(nodes[i], nodes[j], depot);
                 k++;
             }
         }
-        // Construct the savingsList by sorting the edgesList. Uses the compareTo()
-        //  method of the Edge class (TIE ISSUE #1).
+        return sortSavings(savingsArray);
+    }
+
+    /**
+     * Creates a granular savingsList: only the edges (i,j) where j is one of the
+     *  k nearest customers of i, or i one of the k nearest customers of j, so
+     *  there are at most (n-1)k edges instead of (n-1)(n-2)/2.
+     * @param k number of neighbours, the full list is created if k <= 0 or k >= n-2
+     */
+    public static LinkedList<VRPEdge> generateSavingsList(Node[] nodes, int k)
+    {
+        int nNodes = nodes.length;
+        if( k <= 0 || k >= nNodes - 2 )
+            return generateSavingsList(nodes);
+        // 1. Pairs i < j packed as i * nNodes + j, for the k nearest j of every i
+        long[] pairs = new long[(nNodes - 1) * k];
+        long[] byDistance = new long[nNodes - 2];
+        int nPairs = 0;
+        for( int i = 1; i < nNodes; i++ ) // node 0 is the depot
+        {   int m = 0;
+            for( int j = 1; j < nNodes; j++ )
+            {   if( j != i ) // distance bits (>= 0, so ordered as the floats) and j
+                {   float d = (float) distance(nodes[i], nodes[j]);
+                    byDistance[m++] = ((long) Float.floatToIntBits(d) << 32) | j;
+                }
+            }
+            Arrays.sort(byDistance);
+            for( int n = 0; n < k; n++ )
+            {   int j = (int) byDistance[n];
+                pairs[nPairs++] = (long) Math.min(i, j) * nNodes + Math.max(i, j);
+            }
+        }
+        // 2. Every pair once, in the order of the full list (for ties in the sort)
+        Arrays.sort(pairs, 0, nPairs);
+        VRPEdge[] savingsArray = new VRPEdge[nPairs];
+        Node depot = nodes[0];
+        int nEdges = 0;
+        for( int p = 0; p < nPairs; p++ )
+        {   if( p > 0 && pairs[p] == pairs[p - 1] )
+                continue;
+            int i = (int) (pairs[p] / nNodes);
+            int j = (int) (pairs[p] % nNodes);
+            savingsArray[nEdges++] = createSavingsEdge(nodes[i], nodes[j], depot);
+        }
+        return sortSavings(Arrays.copyOf(savingsArray, nEdges));
+    }
+
+    /**
+     * Number of neighbours of a granular savings list from the nlist agent
+     *  argument: a fraction of the customers if nlist < 1, a number of customers
+     *  otherwise. 0 (full list) if nlist <= 0 or there are not more customers.
+     */
+    public static int getNeighbours(double nlist, int nNodes)
+    {
+        int k;
+        if( nlist <= 0 )
+            k = 0;
+        else if( nlist < 1 )
+            k = Math.max(1, (int) Math.ceil(nlist * (nNodes - 1)));
+        else
+            k = (int) nlist;
+        return k < nNodes - 2 ? k : 0;
+    }
+
+    /**
+     * Creates ijEdge and jiEdge, with costs and savings, and returns ijEdge
+     */
+    public static VRPEdge createSavingsEdge(Node iNode, Node jNode, Node depot)
+    {
+        VRPEdge ijEdge = new VRPEdge(iNode, jNode);
+        ijEdge.setCosts(ijEdge.calcCosts(iNode, jNode));
+        ijEdge.setSavings(ijEdge.calcSavings(iNode, jNode, depot));
+        VRPEdge jiEdge = new VRPEdge(jNode, iNode);
+        jiEdge.setCosts(jiEdge.calcCosts(jNode, iNode));
+        jiEdge.setSavings(jiEdge.calcSavings(jNode, iNode, depot));
+        // Set inverse edges
+        ijEdge.setInverse(jiEdge);
+        jiEdge.setInverse(ijEdge);
+        return ijEdge;
+    }
+
+    /**
+     * Construct the savingsList by sorting the edgesList. Uses the compareTo()
+     *  method of the Edge class (TIE ISSUE #1).
+     */
+    public static LinkedList<VRPEdge> sortSavings(VRPEdge[] savingsArray)
+    {
         Arrays.sort(savingsArray);
         List<VRPEdge> sList = Arrays.asList(savingsArray);
         LinkedList<VRPEdge> savingsList = new LinkedList<VRPEdge>(sList);
-        //inputs.setList(savingsList);
         return savingsList;
     }
 
+    private static double distance(Node iNode, Node jNode)
+    {
+        double dx = (double) jNode.getX() - iNode.getX();
+        double dy = (double) jNode.getY() - iNode.getY();
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
     /*
      * Creates the list of paired edges connecting node i with the depot,
      *  i.e., it creates the edges (0,i) and (i,0) for all i > 0.
@@ -455,6 +535,7 @@ int problem;
 	            	}
 	            	iJob.setTotalProcessingTime(totalTime);
 	            }
+	            inputs.setLowerBound(TaillardLowerBound.calcLowerBound(inputs));
 	            in.close();
 	        }
 	        catch (IOException exception)
@@ -0,0 +1,98 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import macs.ontologies.entities.problems.SolutionElements;
+
+/**
+ * Lookup of the nodes (or jobs) of a problem by id in constant time. The ids
+ * are usually 0..n or 1..n, so the nodes are kept in an array indexed by
+ * id - minId. When the ids are too sparse for an array (more than
+ * DENSITY slots per node) they go to a hash map instead.
+ * 
+ * An index is not changed once built: when the nodes change a new one is
+ * built, so it can be read by several threads without locking.
+ * 
+ * @author simon
+ *
+ */
+public final class NodeIndex {
+
+	private static final int DENSITY = 4; // max array slots per node
+	private static final int MIN_SLOTS = 64;
+
+	private final int minId;
+	private final SolutionElements[] byId; // null if the ids are sparse
+	private final Map<Integer, SolutionElements> sparse;
+	private final int size;
+
+	public NodeIndex(Collection<? extends SolutionElements> nodes) {
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (SolutionElements node : nodes) {
+			min = Math.min(min, node.getId());
+			max = Math.max(max, node.getId());
+		}
+		long range = (long) max - min + 1;
+		if (nodes.isEmpty()) {
+			minId = 0;
+			byId = new SolutionElements[0];
+			sparse = null;
+		} else if (range <= Math.max(MIN_SLOTS, (long) DENSITY * nodes.size())) {
+			minId = min;
+			byId = new SolutionElements[(int) range];
+			sparse = null;
+			for (SolutionElements node : nodes) {
+				int slot = node.getId() - minId;
+				if (byId[slot] == null) // first one wins, as in a list scan
+					byId[slot] = node;
+			}
+		} else {
+			minId = 0;
+			byId = null;
+			sparse = new HashMap<Integer, SolutionElements>(nodes.size() * 2);
+			for (SolutionElements node : nodes)
+				if (!sparse.containsKey(node.getId()))
+					sparse.put(node.getId(), node);
+		}
+		size = nodes.size();
+	}
+
+	/**
+	 * @param id
+	 * @return the node with this id, null if there is none
+	 */
+	public SolutionElements get(int id) {
+		if (byId == null)
+			return sparse.get(id);
+		long slot = (long) id - minId;
+		if (slot < 0 || slot >= byId.length)
+			return null;
+		return byId[(int) slot];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isDense() {
+		return byId != null;
+	}
+}
@@ -22,7 +22,7 @@ import java.util.Collections;
 import java.util.List;
 
 import macs.agents.AgentVocabulary;
-import macs.ontologies.SolutionWrapper;
+import macs.ontologies.SolverContext;
 import macs.ontologies.entities.Edge;
 import macs.ontologies.entities.Solution;
 import macs.ontologies.entities.problems.JobData;
@@ -128,18 +128,6 @@ public class OptUtility implements AgentVocabulary{
 	
 	
 	
-	public static SolutionElements getNode(List<SolutionElements> nodes, int nodename){
-		SolutionElements result = null;
-		for(SolutionElements node : nodes){
-			if(node.getId()==nodename){
-				result = node;
-				break;
-			}
-		}
-		
-		return result;
-	}
-	
 	public static List<Double> generateTempList(Solution sol,int iterations){
 		List<Double> temparray = new ArrayList<Double>();
 		double value = sol.getValue();
@@ -267,10 +255,10 @@ public class OptUtility implements AgentVocabulary{
 		return tcosts[nUsedJobs - 1][nMachines - 1];
 	}
 	
-	public static Solution compareSolutions(Solution newsolution,Solution oldsolution){
+	public static Solution compareSolutions(Solution newsolution,Solution oldsolution,SolverContext context){
 		List<Integer> newsol;
 		List<Integer> oldsol;
-		if(SolutionWrapper.getInstance().getProblem()==VRP){
+		if(context.getProblem()==VRP){
 			newsol = newsolution.getList();
 			oldsol = oldsolution.getList();
 		}
@@ -353,49 +341,35 @@ public class OptUtility implements AgentVocabulary{
     
 	}
 	
-	public static Edge computeCost(Edge edge){
-		
-		double cost = 0;
-		
-			if(SolutionWrapper.getInstance().getProblem()==PFSP){
-				JobData first = (JobData)SolutionWrapper.getInstance().getNode(edge.getFirst());
-				JobData second = (JobData)SolutionWrapper.getInstance().getNode(edge.getSecond());
-				List<JobData> jList = new ArrayList<JobData>(2);
-				jList.add(first);
-				jList.add(second);
-				cost = calcTotalCosts(jList);
-				
-				//cost = SolutionWrapper.getInstance().getDistance(edge.getFirst(), edge.getSecond());
-			}
-			else if(SolutionWrapper.getInstance().getProblem()==TSP||SolutionWrapper.getInstance().getProblem()==VRP){
-				SolutionElements first = SolutionWrapper.getInstance().getNode(edge.getFirst());
-				SolutionElements second = SolutionWrapper.getInstance().getNode(edge.getSecond());
-				cost = geDecEuclidanDistance(first, second);
-				
-			}
-			edge.setCosts(cost);
-			//System.out.println("DISTANCE " + distance);
+	public static Edge computeCost(Edge edge,SolverContext context){
 		
-		return edge;
+		return computeCost(edge, context.getNodeIndex(), context.getProblem());
 	}
-	public static double computeSingleCost(Edge edge,List<SolutionElements> nodes,int problem){
+	/**
+	 * Cost of the edge, the nodes are looked up by id in the index. 
+	 * Build the index once and use it for all the edges of a solution.
+	 * @param edge
+	 * @param nodes
+	 * @param problem
+	 * @return cost
+	 */
+	public static double computeSingleCost(Edge edge,NodeIndex nodes,int problem){
 		
 		double cost = 0;
 		
 			if(problem==PFSP){
 				
-				JobData first = (JobData)getNode(nodes,edge.getFirst());
-				JobData second = (JobData)getNode(nodes,edge.getSecond());
+				JobData first = (JobData)nodes.get(edge.getFirst());
+				JobData second = (JobData)nodes.get(edge.getSecond());
 				List<JobData> jList = new ArrayList<JobData>(2);
 				jList.add(first);
 				jList.add(second);
 				cost = calcTotalCosts(jList);
 				
-				//cost = SolutionWrapper.getInstance().getDistance(edge.getFirst(), edge.getSecond());
 			}
 			else if(problem==TSP||problem==VRP){
-				SolutionElements first = getNode(nodes,edge.getFirst());
-				SolutionElements second = getNode(nodes,edge.getSecond());
+				SolutionElements first = nodes.get(edge.getFirst());
+				SolutionElements second = nodes.get(edge.getSecond());
 				cost = geDecEuclidanDistance(first, second);
 				
 			}
@@ -404,30 +378,9 @@ public class OptUtility implements AgentVocabulary{
 		
 		return cost;
 	}
-public static Edge computeCost(Edge edge,List<SolutionElements> nodes,int problem){
-		
-		double cost = 0;
-		
-			if(problem==PFSP){
-				
-				JobData first = (JobData)getNode(nodes,edge.getFirst());
-				JobData second = (JobData)getNode(nodes,edge.getSecond());
-				List<JobData> jList = new ArrayList<JobData>(2);
-				jList.add(first);
-				jList.add(second);
-				cost = calcTotalCosts(jList);
-				
-				//cost = SolutionWrapper.getInstance().getDistance(edge.getFirst(), edge.getSecond());
-			}
-			else if(problem==TSP||problem==VRP){
-				SolutionElements first = getNode(nodes,edge.getFirst());
-				SolutionElements second = getNode(nodes,edge.getSecond());
-				cost = geDecEuclidanDistance(first, second);
-				
-			}
-			edge.setCosts(cost);
-			//System.out.println("DISTANCE " + distance);
+public static Edge computeCost(Edge edge,NodeIndex nodes,int problem){
 		
+		edge.setCosts(computeSingleCost(edge, nodes, problem));
 		return edge;
 	}
 public static List<Integer> edgesToList(Collection<Edge> hlist){
@@ -0,0 +1,123 @@
+/** 
+ * MACS - Multi-Agent Cooperative Search is a framework to develop cooperating agents using 
+ * different Metaheuristics Copyright (C) 2016 Simon Martin. This file is part of MACS. 
+ * 
+ * MACS is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * MACS is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; 
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU General Public License along with MACS. 
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package macs.util;
+
+import java.util.Random;
+
+/**
+ * Seeded source of independent random number streams. Every stream is
+ * identified by a key and its seed is a hash (splitmix64) of the seed of the
+ * source and the key, so the same seed and keys always give the same numbers,
+ * whatever the order or the thread the streams are created in.
+ * 
+ * A source can be split (agent, then chain, then worker thread...) and each
+ * piece of code that runs in its own thread takes its own stream, so there is
+ * no Random shared between threads.
+ * 
+ * @author simon
+ *
+ */
+public class RandomStreams {
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private final long seed;
+	private long nextKey; // key of the next stream returned by nextStream()
+
+	public RandomStreams(long seed) {
+		this.seed = seed;
+		nextKey = 0;
+	}
+
+	/**
+	 * Returns the child source for key, e.g. split(i) for the i-th chain
+	 * @param key
+	 * @return RandomStreams
+	 */
+	public RandomStreams split(long key) {
+		return new RandomStreams(mix(seed + mix(key + GOLDEN_GAMMA)));
+	}
+
+	/**
+	 * Returns the child source for a name, e.g. the local name of an agent
+	 * @param name
+	 * @return RandomStreams
+	 */
+	public RandomStreams split(String name) {
+		long key = 0;
+		for (int i = 0; i < name.length(); i++)
+			key = 31 * key + name.charAt(i);
+		return split(key);
+	}
+
+	/**
+	 * Returns the stream for key. It is not thread safe: use one per thread.
+	 * @param key
+	 * @return Random
+	 */
+	public Random stream(long key) {
+		return new StreamRandom(mix(seed ^ mix(key)));
+	}
+
+	/**
+	 * Returns the streams 0, 1, 2... one per call (e.g. one per search
+	 * requested to an agent), so a sequence of calls can be replayed
+	 * @return Random
+	 */
+	public synchronized Random nextStream() {
+		return stream(nextKey++);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * splitmix64 finalizer
+	 */
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * java.util.Random driven by a splitmix64 sequence. Random keeps its seed in
+	 * an AtomicLong updated by compare-and-set on every number; this state is a
+	 * plain long, as the stream belongs to one thread.
+	 */
+	@SuppressWarnings("serial")
+	private static class StreamRandom extends Random {
+		private long state;
+
+		StreamRandom(long state) {
+			super(0L);
+			this.state = state;
+		}
+
+		@Override
+		protected int next(int bits) {
+			state += GOLDEN_GAMMA;
+			return (int) (mix(state) >>> (64 - bits));
+		}
+
+		@Override
+		public long nextLong() {
+			state += GOLDEN_GAMMA;
+			return mix(state);
+		}
+	}
+}